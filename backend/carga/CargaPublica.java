@@ -0,0 +1,114 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Carga nos endpoints públicos, para comparar threads de plataforma e
+ * threads virtuais (spring.threads.virtual.enabled). Roda como arquivo
+ * único, sem compilar: normalmente chamado pelo comparar.sh.
+ *
+ *   java CargaPublica.java <url> <lojaId> <servicoId> <concorrencia> <segundos> [aquecimento]
+ *
+ * Cada cliente faz uma requisição por vez, em laço fechado: 45% dados da
+ * loja, 45% horários de um dia nos próximos 60, 10% agendamentos (horário
+ * aleatório; os 4xx de horário ocupado contam à parte). Imprime uma linha
+ * com req/s e latências (p50, p99, máx.) depois do aquecimento.
+ */
+public class CargaPublica {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 5) {
+            System.err.println("uso: java CargaPublica.java <url> <lojaId> <servicoId> <concorrencia> <segundos> [aquecimento]");
+            System.exit(2);
+        }
+        String url = args[0];
+        String lojaId = args[1];
+        String servicoId = args[2];
+        int concorrencia = Integer.parseInt(args[3]);
+        int segundos = Integer.parseInt(args[4]);
+        int aquecimento = args.length > 5 ? Integer.parseInt(args[5]) : 5;
+
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        Queue<long[]> latencias = new ConcurrentLinkedQueue<>();
+        AtomicLong sucesso = new AtomicLong();
+        AtomicLong erro4xx = new AtomicLong();
+        AtomicLong falha = new AtomicLong();
+        long inicioMedicao = System.nanoTime() + aquecimento * 1_000_000_000L;
+        long fim = inicioMedicao + segundos * 1_000_000_000L;
+        LocalDate amanha = LocalDate.now().plusDays(1);
+
+        try (ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concorrencia; c++) {
+                clientes.submit(() -> {
+                    ThreadLocalRandom r = ThreadLocalRandom.current();
+                    long[] medidas = new long[1 << 16];
+                    int n = 0;
+                    while (System.nanoTime() < fim) {
+                        HttpRequest req = requisicao(url, lojaId, servicoId, amanha.plusDays(r.nextInt(60)), r);
+                        long ini = System.nanoTime();
+                        try {
+                            int status = http.send(req, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            long duracao = System.nanoTime() - ini;
+                            if (ini < inicioMedicao) continue;
+                            if (status < 400) sucesso.incrementAndGet();
+                            else if (status < 500) erro4xx.incrementAndGet();
+                            else falha.incrementAndGet();
+                            if (n < medidas.length) medidas[n++] = duracao;
+                        } catch (Exception e) {
+                            if (ini >= inicioMedicao) falha.incrementAndGet();
+                        }
+                    }
+                    latencias.add(Arrays.copyOf(medidas, n));
+                    return null;
+                });
+            }
+        }
+
+        long[] todas = latencias.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        long total = sucesso.get() + erro4xx.get() + falha.get();
+        if (todas.length == 0) {
+            System.out.printf("concorrencia=%d sem respostas (falhas=%d)%n", concorrencia, falha.get());
+            return;
+        }
+        System.out.printf("concorrencia=%d req/s=%.0f p50=%.0fms p99=%.0fms max=%.0fms ok=%d 4xx=%d falhas=%d%n",
+                concorrencia, (double) total / segundos,
+                todas[todas.length / 2] / 1e6, todas[(int) (todas.length * 0.99)] / 1e6, todas[todas.length - 1] / 1e6,
+                sucesso.get(), erro4xx.get(), falha.get());
+    }
+
+    private static HttpRequest requisicao(String url, String lojaId, String servicoId, LocalDate dia,
+                                          ThreadLocalRandom r) {
+        int tipo = r.nextInt(100);
+        if (tipo < 45) {
+            return HttpRequest.newBuilder(URI.create(url + "/public/loja/" + lojaId)).build();
+        }
+        if (tipo < 90) {
+            return HttpRequest.newBuilder(URI.create(url + "/public/agendamentos/horarios?lojaId=" + lojaId
+                    + "&servicoId=" + servicoId + "&data=" + dia)).build();
+        }
+        String hora = String.format("%02d:%02d", 9 + r.nextInt(8), r.nextBoolean() ? 0 : 30);
+        String corpo = "{\"lojaId\":" + lojaId + ",\"servicoId\":" + servicoId
+                + ",\"dataHora\":\"" + dia + "T" + hora + "\""
+                + ",\"nome\":\"Carga " + r.nextInt(5000) + "\""
+                + ",\"telefone\":\"1198" + (1_000_000 + r.nextInt(5000)) + "\"}";
+        return HttpRequest.newBuilder(URI.create(url + "/public/agendamentos/criar"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(corpo))
+                .build();
+    }
+}
@@ -0,0 +1,76 @@
+#!/usr/bin/env bash
+# Compara threads de plataforma e threads virtuais nos endpoints públicos.
+#
+#   carga/comparar.sh [segundos] [concorrencias...]     (padrão: 20 s; 50 400 1000)
+#
+# Para cada modo: empacota (uma vez), sobe o jar numa porta própria com H2 em
+# memória limpo, cadastra uma loja aberta todos os dias e um serviço pela API,
+# roda o CargaPublica.java em cada concorrência e conta os avisos de thread
+# virtual presa (-Djdk.tracePinnedThreads=short). Requer Java 21 e curl.
+#
+# Cliente e servidor rodam na mesma máquina: com poucos núcleos os dois
+# disputam a CPU e a variação entre execuções é grande. Compare números
+# da mesma máquina e repita antes de concluir.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+SEGUNDOS=${1:-20}
+shift || true
+CONCORRENCIAS=${*:-"50 400 1000"}
+PORTA=${PORTA:-18080}
+URL="http://localhost:$PORTA"
+LOG_DIR=${LOG_DIR:-target/carga}
+mkdir -p "$LOG_DIR"
+
+if ! java -version 2>&1 | grep -q 'version "\(2[1-9]\|[3-9][0-9]\)'; then
+    echo "Requer Java 21 ou mais novo no PATH" >&2
+    exit 1
+fi
+echo "núcleos: $(nproc), java: $(java -version 2>&1 | head -1)"
+mvn -B -q -DskipTests package
+JAR=$(ls target/marcahora-backend-*.jar | grep -v original | head -1)
+
+id_do_json() {
+    grep -o "\"$1\":[0-9]*" | head -1 | cut -d: -f2
+}
+
+if curl -s -o /dev/null "$URL"; then
+    echo "Porta $PORTA em uso: encerre o processo ou use PORTA=<outra>" >&2
+    exit 1
+fi
+
+for VIRTUAL in false true; do
+    LOG="$LOG_DIR/app-virtual-$VIRTUAL.log"
+    java -Djdk.tracePinnedThreads=short -jar "$JAR" \
+        --server.port="$PORTA" \
+        --spring.threads.virtual.enabled="$VIRTUAL" \
+        --spring.datasource.url="jdbc:h2:mem:carga;DB_CLOSE_DELAY=-1" > "$LOG" 2>&1 &
+    PID=$!
+    trap 'kill $PID 2>/dev/null || true' EXIT
+
+    until curl -s -o /dev/null "$URL/public/loja/0"; do
+        if ! kill -0 "$PID" 2>/dev/null; then
+            echo "A aplicação não subiu; veja $LOG" >&2
+            exit 1
+        fi
+        sleep 1
+    done
+
+    JSON='Content-Type: application/json'
+    LOJA=$(curl -s -H "$JSON" -d '{"nome":"Carga","email":"carga@teste.com","senha":"123456","usaServicos":true}' \
+        "$URL/api/cadastro/loja" | id_do_json lojaId)
+    curl -s -o /dev/null -H "$JSON" -X PUT -d '{"dias":["1","2","3","4","5","6","7"]}' \
+        "$URL/api/configuracoes/$LOJA/horarios"
+    SERVICO=$(curl -s -H "$JSON" -d '{"nome":"Corte","duracaoMinutos":30,"preco":50}' \
+        "$URL/api/servicos/loja/$LOJA" | id_do_json id)
+
+    for C in $CONCORRENCIAS; do
+        echo -n "virtual=$VIRTUAL "
+        java carga/CargaPublica.java "$URL" "$LOJA" "$SERVICO" "$C" "$SEGUNDOS"
+    done
+    echo "virtual=$VIRTUAL threads presas: $(grep -c 'pinned' "$LOG" || true) (log em $LOG)"
+
+    kill "$PID"
+    wait "$PID" 2>/dev/null || true
+    trap - EXIT
+done
@@ -0,0 +1,195 @@
+package com.marcahora.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marcahora.model.Agendamento;
+import com.marcahora.model.Loja;
+import com.marcahora.model.Profissional;
+import com.marcahora.model.Servico;
+import com.marcahora.repository.AgendamentoRepository;
+import com.marcahora.service.CacheHorarios;
+import com.marcahora.service.ConsistenciaReplica;
+import com.marcahora.service.EventosAgenda;
+import com.marcahora.service.HorarioService;
+import com.marcahora.service.ReservasHorario;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks do motor de horários ({@link HorarioService}) com um
+ * {@link AgendamentoRepository} em memória, sem banco e sem Spring.
+ *
+ * Rodar com o perfil "jmh" (o profiler "gc" já vem ligado no pom):
+ * <pre>
+ *   mvn -Pjmh compile exec:exec
+ *   mvn -Pjmh compile exec:exec -Djmh.args="HorarioServiceBenchmark.horariosDoDia -p agendamentosPorDia=100 -f 1"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HorarioServiceBenchmark {
+
+    private static final LocalTime ABERTURA = LocalTime.of(7, 0);
+    private static final LocalTime FECHAMENTO = LocalTime.of(22, 0);
+    private static final int DIAS_PERIODO = 31;
+
+    /** Agendamentos por profissional em cada dia */
+    @Param({"0", "20", "100"})
+    public int agendamentosPorDia;
+
+    @Param({"10", "30"})
+    public int intervaloMinutos;
+
+    @Param({"30", "90"})
+    public int duracaoServicoMinutos;
+
+    @Param({"1", "5"})
+    public int profissionais;
+
+    private HorarioService horarioService;
+    private Loja loja;
+    private Servico servico;
+    private List<Profissional> listaProfissionais;
+    private LocalDate data;
+    private LocalDate fimPeriodo;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        loja = new Loja();
+        loja.setId(1L);
+        loja.setAtiva(true);
+        loja.setHorarioAbertura(ABERTURA.toString());
+        loja.setHorarioFechamento(FECHAMENTO.toString());
+        loja.setIntervaloAtendimento(intervaloMinutos);
+        loja.setTempoBufferMinutos(5);
+        loja.setDiasFuncionamento("1,2,3,4,5,6,7");
+        loja.setUsaServicos(true);
+        loja.setUsaProfissionais(true);
+
+        servico = new Servico();
+        servico.setId(1L);
+        servico.setDuracaoMinutos(duracaoServicoMinutos);
+        servico.setLoja(loja);
+
+        listaProfissionais = new ArrayList<>();
+        for (long i = 1; i <= profissionais; i++) {
+            Profissional p = new Profissional();
+            p.setId(i);
+            p.setNome("Profissional " + i);
+            p.setLoja(loja);
+            listaProfissionais.add(p);
+        }
+
+        // Dia futuro, para o filtro de horários passados não interferir
+        data = LocalDate.now().plusDays(7);
+        while (data.getDayOfWeek() != DayOfWeek.MONDAY) {
+            data = data.plusDays(1);
+        }
+        fimPeriodo = data.plusDays(DIAS_PERIODO - 1);
+
+        Map<LocalDate, List<Agendamento>> porDia = gerarAgendamentos(new Random(42));
+        EventosAgenda eventos = new EventosAgenda(new ObjectMapper(), 30, 0, 25, 1, 64);
+        horarioService = new HorarioService(repositorioEmMemoria(porDia),
+                new CacheHorarios(10_000, 30), eventos, new ReservasHorario(eventos, 5, 0, 0),
+                // Sem réplica: as leituras só executam, sem transação
+                new ConsistenciaReplica(null, "", 2000));
+    }
+
+    // ============================
+    // BENCHMARKS
+    // ============================
+
+    /** Um dia de um profissional, recalculado a cada chamada (sem cache) */
+    @Benchmark
+    public List<String> horariosDoDia() {
+        horarioService.invalidarDia(loja.getId(), data);
+        return horarioService.gerarHorariosDisponiveis(loja, data, servico, listaProfissionais.get(0));
+    }
+
+    /** Um dia de um profissional servido pelo cache */
+    @Benchmark
+    public List<String> horariosDoDiaComCache() {
+        return horarioService.gerarHorariosDisponiveis(loja, data, servico, listaProfissionais.get(0));
+    }
+
+    /** Todos os profissionais ativos numa única varredura */
+    @Benchmark
+    public Map<String, List<Profissional>> qualquerProfissional() {
+        return horarioService.gerarHorariosPorProfissional(loja, data, servico, listaProfissionais);
+    }
+
+    /** Visão de calendário: 31 dias com uma única consulta */
+    @Benchmark
+    public Map<LocalDate, List<String>> periodoDeUmMes() {
+        horarioService.invalidarLoja(loja.getId());
+        return horarioService.gerarHorariosPorPeriodo(loja, data, fimPeriodo, servico, listaProfissionais.get(0));
+    }
+
+    // ============================
+    // DADOS
+    // ============================
+
+    private Map<LocalDate, List<Agendamento>> gerarAgendamentos(Random random) {
+        int abertura = ABERTURA.toSecondOfDay() / 60;
+        int minutosAbertos = FECHAMENTO.toSecondOfDay() / 60 - abertura;
+
+        Map<LocalDate, List<Agendamento>> porDia = new HashMap<>();
+        long id = 1;
+        for (LocalDate dia = data; !dia.isAfter(fimPeriodo); dia = dia.plusDays(1)) {
+            List<Agendamento> agendamentos = new ArrayList<>();
+            for (Profissional profissional : listaProfissionais) {
+                for (int i = 0; i < agendamentosPorDia; i++) {
+                    int minuto = abertura + random.nextInt(minutosAbertos / 5) * 5;
+
+                    Agendamento ag = new Agendamento();
+                    ag.setId(id++);
+                    ag.setLoja(loja);
+                    ag.setServico(servico);
+                    ag.setProfissional(profissional);
+                    ag.setStatus(i % 10 == 0 ? "CANCELADO" : "AGENDADO");
+                    ag.setDataHora(dia.atTime(minuto / 60, minuto % 60));
+                    agendamentos.add(ag);
+                }
+            }
+            porDia.put(dia, agendamentos);
+        }
+        return porDia;
+    }
+
+    /** Implementa apenas as consultas usadas pelo HorarioService */
+    private static AgendamentoRepository repositorioEmMemoria(Map<LocalDate, List<Agendamento>> porDia) {
+        return (AgendamentoRepository) Proxy.newProxyInstance(
+                AgendamentoRepository.class.getClassLoader(),
+                new Class<?>[] { AgendamentoRepository.class },
+                (proxy, metodo, args) -> switch (metodo.getName()) {
+                    case "findByLojaIdAndDataHoraBetween" ->
+                            entre(porDia, (LocalDateTime) args[1], (LocalDateTime) args[2], null);
+                    case "findByLojaIdAndProfissionalIdAndDataHoraBetween" ->
+                            entre(porDia, (LocalDateTime) args[2], (LocalDateTime) args[3], (Long) args[1]);
+                    default -> throw new UnsupportedOperationException(metodo.getName());
+                });
+    }
+
+    private static List<Agendamento> entre(Map<LocalDate, List<Agendamento>> porDia,
+                                           LocalDateTime inicio, LocalDateTime fim, Long profissionalId) {
+        List<Agendamento> resultado = new ArrayList<>();
+        for (LocalDate dia = inicio.toLocalDate(); !dia.isAfter(fim.toLocalDate()); dia = dia.plusDays(1)) {
+            for (Agendamento ag : porDia.getOrDefault(dia, List.of())) {
+                if (profissionalId == null || profissionalId.equals(ag.getProfissional().getId())) {
+                    resultado.add(ag);
+                }
+            }
+        }
+        return resultado;
+    }
+}
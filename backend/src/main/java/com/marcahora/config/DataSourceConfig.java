@@ -0,0 +1,139 @@
+package com.marcahora.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.SQLException;
+
+/**
+ * Primário + réplica de leitura, ativado por marcahora.replica.url.
+ * Sem a propriedade, o Spring Boot monta o datasource único de sempre.
+ *
+ * Flyway, validação do Hibernate e escritas usam o primário (não há
+ * transação readOnly nesses caminhos). Requisições que não são GET/HEAD
+ * (criar agendamento, reservar horário, cadastros) ficam inteiras no
+ * primário, inclusive as leituras feitas antes de gravar.
+ *
+ * Transações que leem da réplica não gravam no cache de segundo nível nem no de
+ * consultas: uma linha ainda atrasada na réplica não entra no cache, onde
+ * ficaria até a próxima alteração (e seria servida com o ETag novo da loja). O cache é preenchido pelas leituras no primário.
+ */
+@Configuration
+@ConditionalOnProperty(name = "marcahora.replica.url")
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimario(DataSourceProperties properties) {
+        HikariDataSource ds = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        ds.setPoolName("primario");
+        return ds;
+    }
+
+    @Bean
+    public HikariDataSource dataSourceReplica(@Value("${marcahora.replica.url}") String url,
+                                              @Value("${marcahora.replica.username:sa}") String usuario,
+                                              @Value("${marcahora.replica.password:}") String senha,
+                                              @Value("${marcahora.replica.pool-maximo:10}") int poolMaximo) {
+        HikariDataSource ds = new HikariDataSource();
+        ds.setPoolName("replica");
+        ds.setJdbcUrl(url);
+        ds.setUsername(usuario);
+        ds.setPassword(senha);
+        ds.setMaximumPoolSize(poolMaximo);
+        ds.setReadOnly(true);
+        return ds;
+    }
+
+    @Bean
+    public RoteamentoDataSource roteamentoDataSource(HikariDataSource dataSourcePrimario,
+                                                     HikariDataSource dataSourceReplica) {
+        return new RoteamentoDataSource(dataSourcePrimario, dataSourceReplica);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(RoteamentoDataSource roteamentoDataSource) {
+        return new LazyConnectionDataSourceProxy(roteamentoDataSource);
+    }
+
+    // O JpaTransactionManager usa o dialeto da EntityManagerFactory: é nela que ele é trocado
+    @Bean
+    public static BeanPostProcessor cacheSoLeituraNaReplica(ObjectProvider<RoteamentoDataSource> roteamento) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String nome) {
+                if (bean instanceof AbstractEntityManagerFactoryBean fabrica) {
+                    fabrica.setJpaDialect(new DialetoCacheNaReplica(roteamento));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public OncePerRequestFilter primarioEmEscritas() {
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                            FilterChain chain) throws ServletException, IOException {
+                String metodo = request.getMethod();
+                boolean leitura = "GET".equals(metodo) || "HEAD".equals(metodo);
+                RoteamentoDataSource.usarPrimario(!leitura);
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    RoteamentoDataSource.usarPrimario(false);
+                }
+            }
+        };
+    }
+
+    /** Transação que vai ler da réplica: não grava no cache de entidades nem no de consultas */
+    private static class DialetoCacheNaReplica extends HibernateJpaDialect {
+
+        private final ObjectProvider<RoteamentoDataSource> roteamento;
+
+        DialetoCacheNaReplica(ObjectProvider<RoteamentoDataSource> roteamento) {
+            this.roteamento = roteamento;
+        }
+
+        @Override
+        public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+                throws SQLException {
+            Object dados = super.beginTransaction(entityManager, definition);
+            if (roteamento.getObject().leDaReplica(definition.isReadOnly())) {
+                // find() recalcula o modo a partir das propriedades do EntityManager
+                // (lê o cache, não grava); as consultas usam o modo da sessão, e com
+                // GET o Hibernate ainda grava no cache de consultas depois de um miss
+                entityManager.setProperty(AvailableSettings.JAKARTA_SHARED_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+                entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+            }
+            return dados;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.marcahora.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Réplica para desenvolvimento (perfil replica-local): um segundo H2 em
+ * memória alimentado pelo primário.
+ *
+ * Na primeira execução o primário é exportado (SCRIPT) e carregado na
+ * réplica, e cada tabela ganha uma tabela ligada ao primário no esquema
+ * ORIGEM. Depois, a cada marcahora.replica.sincronizar-ms, as tabelas são
+ * recopiadas numa transação só; quem lê a réplica vê o estado anterior até
+ * o commit, como numa réplica real atrasada. Copia tudo a cada vez, então
+ * serve para bases de desenvolvimento, não para volumes grandes.
+ */
+@Component
+@Profile("replica-local")
+public class ReplicaLocalH2 {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLocalH2.class);
+
+    private final DataSourceProperties primario;
+    private final RoteamentoDataSource roteamentoDataSource;
+    private final String urlReplica;
+    private final String usuarioReplica;
+    private final String senhaReplica;
+
+    private List<String> tabelas;
+
+    public ReplicaLocalH2(DataSourceProperties primario,
+                          RoteamentoDataSource roteamentoDataSource,
+                          @Value("${marcahora.replica.url}") String urlReplica,
+                          @Value("${marcahora.replica.username:sa}") String usuarioReplica,
+                          @Value("${marcahora.replica.password:}") String senhaReplica) {
+        this.primario = primario;
+        this.roteamentoDataSource = roteamentoDataSource;
+        this.urlReplica = urlReplica;
+        this.usuarioReplica = usuarioReplica;
+        this.senhaReplica = senhaReplica;
+        // Até a primeira carga, as leituras ficam no primário
+        roteamentoDataSource.setReplicaDisponivel(false);
+    }
+
+    @Scheduled(fixedDelayString = "${marcahora.replica.sincronizar-ms:1000}")
+    public void sincronizar() {
+        try {
+            if (tabelas == null) {
+                carregar();
+                roteamentoDataSource.setReplicaDisponivel(true);
+                log.info("Réplica local carregada: {} tabelas", tabelas.size());
+            } else {
+                copiarTabelas();
+            }
+        } catch (Exception e) {
+            log.warn("Falha ao sincronizar a réplica local: {}", e.getMessage());
+        }
+    }
+
+    /** Esquema e dados iniciais, mais as tabelas ligadas ao primário */
+    private void carregar() throws Exception {
+        Path script = Files.createTempFile("marcahora-replica", ".sql");
+        try {
+            try (Connection origem = DriverManager.getConnection(
+                    primario.determineUrl(), primario.determineUsername(), primario.determinePassword());
+                 Statement st = origem.createStatement()) {
+                st.execute("SCRIPT TO '" + script + "'");
+            }
+
+            try (Connection destino = abrirReplica(); Statement st = destino.createStatement()) {
+                st.execute("DROP ALL OBJECTS");
+                st.execute("RUNSCRIPT FROM '" + script + "'");
+                // Réplica só recebe cópias: a ordem entre tabelas não importa
+                st.execute("SET REFERENTIAL_INTEGRITY FALSE");
+
+                List<String> nomes = new ArrayList<>();
+                try (ResultSet rs = st.executeQuery("SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES "
+                        + "WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_TYPE = 'BASE TABLE' "
+                        + "AND TABLE_NAME <> 'flyway_schema_history'")) {
+                    while (rs.next()) nomes.add(rs.getString(1));
+                }
+
+                st.execute("CREATE SCHEMA ORIGEM");
+                for (String tabela : nomes) {
+                    st.execute("CREATE LINKED TABLE ORIGEM." + tabela + "('org.h2.Driver', '"
+                            + primario.determineUrl() + "', '" + primario.determineUsername() + "', '"
+                            + nulo(primario.determinePassword()) + "', 'PUBLIC." + tabela + "') READONLY");
+                }
+                tabelas = nomes;
+            }
+        } finally {
+            Files.deleteIfExists(script);
+        }
+    }
+
+    private void copiarTabelas() throws SQLException {
+        try (Connection destino = abrirReplica()) {
+            destino.setAutoCommit(false);
+            try (Statement st = destino.createStatement()) {
+                for (String tabela : tabelas) {
+                    st.execute("DELETE FROM PUBLIC." + tabela);
+                    st.execute("INSERT INTO PUBLIC." + tabela + " SELECT * FROM ORIGEM." + tabela);
+                }
+                destino.commit();
+            } catch (SQLException e) {
+                destino.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private Connection abrirReplica() throws SQLException {
+        return DriverManager.getConnection(urlReplica, usuarioReplica, nulo(senhaReplica));
+    }
+
+    private static String nulo(String valor) {
+        return valor == null ? "" : valor;
+    }
+}
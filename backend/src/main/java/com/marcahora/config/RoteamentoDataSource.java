@@ -0,0 +1,74 @@
+package com.marcahora.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Escolhe o banco de cada conexão: transações {@code readOnly} vão para a
+ * réplica, todo o resto (escritas e código fora de transação) vai para o
+ * primário. Precisa ficar atrás de um LazyConnectionDataSourceProxy, senão
+ * a conexão é pedida antes de a transação marcar o readOnly.
+ *
+ * Os métodos de leitura dos repositórios abrem transação readOnly por
+ * conta própria; numa requisição de escrita eles leem o que acabou de ser
+ * gravado, então {@link #usarPrimario} manda tudo da thread para o primário.
+ */
+public class RoteamentoDataSource extends AbstractRoutingDataSource {
+
+    enum Destino { PRIMARIO, REPLICA }
+
+    private static final ThreadLocal<Boolean> SO_PRIMARIO = new ThreadLocal<>();
+
+    private final LongAdder conexoesPrimario = new LongAdder();
+    private final LongAdder conexoesReplica = new LongAdder();
+    private volatile boolean replicaDisponivel = true;
+
+    public RoteamentoDataSource(Object primario, Object replica) {
+        Map<Object, Object> destinos = new LinkedHashMap<>();
+        destinos.put(Destino.PRIMARIO, primario);
+        destinos.put(Destino.REPLICA, replica);
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primario);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (leDaReplica(TransactionSynchronizationManager.isCurrentTransactionReadOnly())) {
+            conexoesReplica.increment();
+            return Destino.REPLICA;
+        }
+        conexoesPrimario.increment();
+        return Destino.PRIMARIO;
+    }
+
+    /** true se uma transação com esse readOnly, na thread atual, lê da réplica */
+    public boolean leDaReplica(boolean readOnly) {
+        return readOnly && replicaDisponivel && SO_PRIMARIO.get() == null;
+    }
+
+    /** Liga (true) ou desliga o uso exclusivo do primário na thread atual */
+    public static void usarPrimario(boolean primario) {
+        if (primario) {
+            SO_PRIMARIO.set(Boolean.TRUE);
+        } else {
+            SO_PRIMARIO.remove();
+        }
+    }
+
+    /** Fora do ar (ex.: sendo recarregada), tudo vai para o primário */
+    public void setReplicaDisponivel(boolean disponivel) {
+        this.replicaDisponivel = disponivel;
+    }
+
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("replicaDisponivel", replicaDisponivel);
+        stats.put("conexoesPrimario", conexoesPrimario.sum());
+        stats.put("conexoesReplica", conexoesReplica.sum());
+        return stats;
+    }
+}
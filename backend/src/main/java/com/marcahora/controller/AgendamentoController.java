@@ -1,59 +1,232 @@
 package com.marcahora.controller;
 
+import com.marcahora.dto.AgendamentoResumo;
+import com.marcahora.dto.Pagina;
 import com.marcahora.model.Agendamento;
 import com.marcahora.model.Cliente;
 import com.marcahora.model.Loja;
 import com.marcahora.model.Servico;
+import com.marcahora.repository.AgendamentoArquivadoRepository;
 import com.marcahora.repository.AgendamentoRepository;
 import com.marcahora.repository.ClienteRepository;
 import com.marcahora.repository.LojaRepository;
 import com.marcahora.repository.ServicoRepository;
+import com.marcahora.service.ArquivamentoAgendamentos;
+import com.marcahora.service.EstatisticasDiarias;
+import com.marcahora.service.ExportacaoAgendamentos;
+import com.marcahora.service.HorarioService;
+import com.marcahora.service.RespostasCampos;
+import com.marcahora.service.TravaAgenda;
+import org.springframework.data.domain.Limit;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.*;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/agendamentos")
 public class AgendamentoController {
 
+    private static final int MAX_DIAS_EXPORTACAO = 366;
+    private static final int MAX_DIAS_RESPOSTAS = 31;
+
     private final AgendamentoRepository agendamentoRepository;
     private final LojaRepository lojaRepository;
     private final ClienteRepository clienteRepository;
     private final ServicoRepository servicoRepository;
+    private final HorarioService horarioService;
+    private final ExportacaoAgendamentos exportacaoAgendamentos;
+    private final EstatisticasDiarias estatisticasDiarias;
+    private final TransactionTemplate transactionTemplate;
+    private final AgendamentoArquivadoRepository arquivoRepository;
+    private final ArquivamentoAgendamentos arquivamentoAgendamentos;
+    private final RespostasCampos respostasCampos;
+    private final TravaAgenda travaAgenda;
 
     public AgendamentoController(AgendamentoRepository agendamentoRepository,
                                  LojaRepository lojaRepository,
                                  ClienteRepository clienteRepository,
-                                 ServicoRepository servicoRepository) {
+                                 ServicoRepository servicoRepository,
+                                 HorarioService horarioService,
+                                 ExportacaoAgendamentos exportacaoAgendamentos,
+                                 EstatisticasDiarias estatisticasDiarias,
+                                 TransactionTemplate transactionTemplate,
+                                 AgendamentoArquivadoRepository arquivoRepository,
+                                 ArquivamentoAgendamentos arquivamentoAgendamentos,
+                                 RespostasCampos respostasCampos,
+                                 TravaAgenda travaAgenda) {
         this.agendamentoRepository = agendamentoRepository;
         this.lojaRepository = lojaRepository;
         this.clienteRepository = clienteRepository;
         this.servicoRepository = servicoRepository;
+        this.horarioService = horarioService;
+        this.exportacaoAgendamentos = exportacaoAgendamentos;
+        this.estatisticasDiarias = estatisticasDiarias;
+        this.transactionTemplate = transactionTemplate;
+        this.arquivoRepository = arquivoRepository;
+        this.arquivamentoAgendamentos = arquivamentoAgendamentos;
+        this.respostasCampos = respostasCampos;
+        this.travaAgenda = travaAgenda;
     }
 
+    // Listagens devolvem AgendamentoResumo (linhas planas, uma consulta);
+    // o agendamento completo continua em GET /{id}.
+    // Quando o período chega nos agendamentos arquivados, o arquivo entra junto.
+
+    private static final Comparator<AgendamentoResumo> POR_DATA_E_ID =
+            Comparator.comparing(AgendamentoResumo::dataHora).thenComparing(AgendamentoResumo::id);
+
+    // Paginação por cursor (data/hora + id): ?cursor=<proximoCursor>&limite=50
     @GetMapping("/loja/{lojaId}")
-    public List<Agendamento> listarPorLoja(@PathVariable Long lojaId) {
-        return agendamentoRepository.findByLojaId(lojaId);
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> listarPorLoja(
+            @PathVariable Long lojaId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite) {
+        int tamanho = Pagina.tamanho(limite);
+        Limit limiteConsulta = Limit.of(tamanho + 1);
+
+        List<AgendamentoResumo> linhas;
+        if (cursor == null || cursor.isBlank()) {
+            linhas = agendamentoRepository.listarResumoPorLoja(lojaId, limiteConsulta);
+            if (arquivamentoAgendamentos.alcancaArquivo(LocalDateTime.MIN)) {
+                linhas = juntar(arquivoRepository.listarResumoPorLoja(lojaId, limiteConsulta), linhas, tamanho + 1);
+            }
+        } else {
+            LocalDateTime aposDataHora;
+            Long aposId;
+            try {
+                String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("_");
+                aposDataHora = LocalDateTime.parse(partes[0]);
+                aposId = Long.valueOf(partes[1]);
+            } catch (IllegalArgumentException | DateTimeException | ArrayIndexOutOfBoundsException e) {
+                return ResponseEntity.badRequest().body("Cursor inválido");
+            }
+            linhas = agendamentoRepository.listarResumoPorLojaApos(lojaId, aposDataHora, aposId, limiteConsulta);
+            if (arquivamentoAgendamentos.alcancaArquivo(aposDataHora)) {
+                linhas = juntar(arquivoRepository.listarResumoPorLojaApos(lojaId, aposDataHora, aposId, limiteConsulta),
+                        linhas, tamanho + 1);
+            }
+        }
+
+        return ResponseEntity.ok(Pagina.de(linhas, tamanho, this::cursorDe));
+    }
+
+    /** Junta arquivo e tabela quente na ordem (data/hora, id), até {@code limite} itens */
+    private static List<AgendamentoResumo> juntar(List<AgendamentoResumo> arquivados,
+                                                  List<AgendamentoResumo> recentes, int limite) {
+        if (arquivados.isEmpty()) return recentes;
+
+        List<AgendamentoResumo> todos = new ArrayList<>(arquivados.size() + recentes.size());
+        todos.addAll(arquivados);
+        todos.addAll(recentes);
+        todos.sort(POR_DATA_E_ID);
+        return todos.size() > limite ? todos.subList(0, limite) : todos;
+    }
+
+    /** Cursor opaco com a posição (data/hora, id) do último item da página */
+    private String cursorDe(AgendamentoResumo ag) {
+        String posicao = ag.dataHora() + "_" + ag.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(posicao.getBytes(StandardCharsets.UTF_8));
     }
 
     @GetMapping("/loja/{lojaId}/data")
-    public List<Agendamento> listarPorData(
+    @Transactional(readOnly = true)
+    public List<AgendamentoResumo> listarPorData(
             @PathVariable Long lojaId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate data
     ) {
         LocalDateTime inicio = data.atStartOfDay();
         LocalDateTime fim = data.atTime(LocalTime.MAX);
-        return agendamentoRepository.findByLojaIdAndDataHoraBetween(lojaId, inicio, fim);
+        List<AgendamentoResumo> lista = agendamentoRepository.listarResumoPorPeriodo(lojaId, inicio, fim);
+        if (arquivamentoAgendamentos.alcancaArquivo(inicio)) {
+            lista = juntar(arquivoRepository.listarResumoPorPeriodo(lojaId, inicio, fim), lista, Integer.MAX_VALUE);
+        }
+        return lista;
+    }
+
+    /**
+     * Respostas aos campos personalizados dos agendamentos do período (um dia
+     * se fim não vier), numa consulta só; a agenda agrupa por agendamentoId.
+     */
+    @GetMapping("/loja/{lojaId}/respostas")
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> listarRespostas(
+            @PathVariable Long lojaId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim
+    ) {
+        LocalDate ultimo = fim != null ? fim : inicio;
+        if (ultimo.isBefore(inicio) || inicio.plusDays(MAX_DIAS_RESPOSTAS).isBefore(ultimo)) {
+            return ResponseEntity.badRequest().body("Período inválido (máximo " + MAX_DIAS_RESPOSTAS + " dias)");
+        }
+        return ResponseEntity.ok(respostasCampos.listarPorPeriodo(lojaId, inicio.atStartOfDay(), ultimo.atTime(LocalTime.MAX)));
+    }
+
+    // ============================
+    // EXPORTAÇÃO (CSV)
+    // ============================
+
+    /**
+     * CSV do período, escrito enquanto é lido do banco (memória constante).
+     * Comprime com gzip quando o cliente aceita (Accept-Encoding).
+     */
+    @GetMapping("/loja/{lojaId}/export")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @PathVariable Long lojaId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        if (fim.isBefore(inicio) || inicio.plusDays(MAX_DIAS_EXPORTACAO).isBefore(fim)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        String arquivo = "agendamentos-" + lojaId + "-" + inicio + "-" + fim + ".csv";
+
+        StreamingResponseBody corpo = saida -> {
+            OutputStream destino = gzip ? new GZIPOutputStream(saida, 64 * 1024) : saida;
+            exportacaoAgendamentos.exportarCsv(lojaId, inicio.atStartOfDay(), fim.atTime(LocalTime.MAX), destino);
+            if (destino instanceof GZIPOutputStream compactado) {
+                compactado.finish();
+            }
+        };
+
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + arquivo + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            resposta.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return resposta.body(corpo);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Agendamento> buscar(@PathVariable Long id) {
-        return agendamentoRepository.findById(id)
-                .map(ResponseEntity::ok)
+    public ResponseEntity<?> buscar(@PathVariable Long id) {
+        Agendamento ag = agendamentoRepository.findById(id).orElse(null);
+        if (ag != null) {
+            return ResponseEntity.ok(ag);
+        }
+        // Mesmo formato de JSON; só leitura
+        return arquivoRepository.findById(id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -81,11 +254,32 @@ public class AgendamentoController {
         ag.setLoja(loja);
         ag.setCliente(cliente);
         ag.setServico(servico);
+        ag.setPreco(servico.getPreco());
         ag.setDataHora(dataHora);
         ag.setStatus("confirmado");
         ag.setObservacoes(observacoes);
 
-        return ResponseEntity.ok(agendamentoRepository.save(ag));
+        // Mesma trava do agendamento público: a loja e o cliente não marcam o
+        // mesmo horário ao mesmo tempo. Só a sobreposição é conferida; encaixes,
+        // horários fora da grade ou já passados continuam permitidos no painel
+        Lock trava = travaAgenda.doDia(lojaId, dataHora.toLocalDate());
+        trava.lock();
+        try {
+            if (!horarioService.semSobreposicao(loja, dataHora, servico, null, null)) {
+                return ResponseEntity.badRequest().body("Horário já está ocupado por outro agendamento.");
+            }
+
+            // Agendamento e totais diários na mesma transação
+            Agendamento salvo = transactionTemplate.execute(status -> {
+                Agendamento novo = agendamentoRepository.save(ag);
+                estatisticasDiarias.agendamentoCriado(novo);
+                return novo;
+            });
+            horarioService.agendamentoCriado(salvo);
+            return ResponseEntity.ok(salvo);
+        } finally {
+            trava.unlock();
+        }
     }
 
     @PutMapping("/{id}/status")
@@ -94,11 +288,52 @@ public class AgendamentoController {
             @RequestBody Map<String, String> body
     ) {
         String status = body.get("status");
-        return agendamentoRepository.findById(id)
-                .map(existing -> {
-                    existing.setStatus(status);
-                    return ResponseEntity.ok(agendamentoRepository.save(existing));
-                })
-                .orElse(ResponseEntity.notFound().build());
+        Agendamento atual = agendamentoRepository.findById(id).orElse(null);
+        if (atual == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        // Reativar um cancelado volta a ocupar o horário, que pode já ter sido
+        // agendado de novo: mesma trava do dia e verificação da criação. A trava
+        // vale para qualquer status ativo, porque o anterior só é conhecido na transação
+        Lock trava = cancelado(status) || atual.getDataHora() == null ? null
+                : travaAgenda.doDia(atual.getLoja().getId(), atual.getDataHora().toLocalDate());
+        if (trava != null) trava.lock();
+        try {
+            String[] statusAnterior = new String[1];
+            boolean[] ocupado = new boolean[1];
+
+            // Status e totais diários na mesma transação; cache e eventos só depois do commit
+            Agendamento salvo = transactionTemplate.execute(tx -> agendamentoRepository.findById(id)
+                    .map(existing -> {
+                        statusAnterior[0] = existing.getStatus();
+                        if (trava != null && cancelado(statusAnterior[0])
+                                && !horarioService.semSobreposicao(existing.getLoja(), existing.getDataHora(),
+                                        existing.getServico(), existing.getProfissional(), existing.getId())) {
+                            ocupado[0] = true;
+                            return existing;
+                        }
+                        existing.setStatus(status);
+                        Agendamento atualizado = agendamentoRepository.save(existing);
+                        estatisticasDiarias.statusAlterado(atualizado, statusAnterior[0]);
+                        return atualizado;
+                    })
+                    .orElse(null));
+
+            if (salvo == null) {
+                return ResponseEntity.notFound().build();
+            }
+            if (ocupado[0]) {
+                return ResponseEntity.badRequest().body("Horário já está ocupado por outro agendamento.");
+            }
+            horarioService.statusAlterado(salvo, statusAnterior[0]);
+            return ResponseEntity.ok(salvo);
+        } finally {
+            if (trava != null) trava.unlock();
+        }
+    }
+
+    private static boolean cancelado(String status) {
+        return "cancelado".equalsIgnoreCase(status);
     }
 }
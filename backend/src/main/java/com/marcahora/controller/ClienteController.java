@@ -1,29 +1,108 @@
 package com.marcahora.controller;
 
+import com.marcahora.dto.ClienteBusca;
+import com.marcahora.dto.Pagina;
 import com.marcahora.model.Cliente;
 import com.marcahora.model.Loja;
 import com.marcahora.repository.ClienteRepository;
 import com.marcahora.repository.LojaRepository;
+import com.marcahora.service.BuscaClientes;
+import com.marcahora.service.ImportacaoClientes;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/clientes")
 public class ClienteController {
 
+    // E-mail e telefone (normalizados) são únicos por loja
+    private static final String CONTATO_REPETIDO = "Já existe um cliente com este e-mail ou telefone.";
+
     private final ClienteRepository clienteRepository;
     private final LojaRepository lojaRepository;
+    private final ImportacaoClientes importacaoClientes;
+    private final BuscaClientes buscaClientes;
 
-    public ClienteController(ClienteRepository clienteRepository, LojaRepository lojaRepository) {
+    public ClienteController(ClienteRepository clienteRepository, LojaRepository lojaRepository,
+                             ImportacaoClientes importacaoClientes, BuscaClientes buscaClientes) {
         this.clienteRepository = clienteRepository;
         this.lojaRepository = lojaRepository;
+        this.importacaoClientes = importacaoClientes;
+        this.buscaClientes = buscaClientes;
     }
 
+    // Paginação por cursor: ?cursor=<proximoCursor da página anterior>&limite=50
     @GetMapping("/loja/{lojaId}")
-    public List<Cliente> listarPorLoja(@PathVariable Long lojaId) {
-        return clienteRepository.findByLojaId(lojaId);
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> listarPorLoja(
+            @PathVariable Long lojaId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite) {
+        int tamanho = Pagina.tamanho(limite);
+        Limit limiteConsulta = Limit.of(tamanho + 1);
+
+        List<Cliente> linhas;
+        if (cursor == null || cursor.isBlank()) {
+            linhas = clienteRepository.findByLojaIdOrderByIdAsc(lojaId, limiteConsulta);
+        } else {
+            Long aposId;
+            try {
+                aposId = Long.valueOf(cursor);
+            } catch (NumberFormatException e) {
+                return ResponseEntity.badRequest().body("Cursor inválido");
+            }
+            linhas = clienteRepository.findByLojaIdAndIdGreaterThanOrderByIdAsc(lojaId, aposId, limiteConsulta);
+        }
+
+        return ResponseEntity.ok(Pagina.de(linhas, tamanho, c -> String.valueOf(c.getId())));
+    }
+
+    // Busca por nome, telefone ou e-mail (prefixo de cada palavra, com
+    // tolerância a erros de digitação no nome): ?q=ana silva&limite=20
+    @GetMapping("/loja/{lojaId}/search")
+    public List<ClienteBusca> buscar(
+            @PathVariable Long lojaId,
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limite) {
+        return buscaClientes.buscar(lojaId, q, Pagina.tamanho(limite));
+    }
+
+    // =======================
+    // IMPORTAÇÃO EM MASSA
+    // =======================
+    // Corpo: CSV com cabeçalho (nome,email,telefone,anotacoes; separador , ou ;)
+    // ou NDJSON (um objeto por linha), lido em streaming
+    @PostMapping(path = "/loja/{lojaId}/import", consumes = {"text/csv", "application/x-ndjson", "text/plain"})
+    public ResponseEntity<?> importar(@PathVariable Long lojaId,
+                                      @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                      HttpServletRequest request) throws IOException {
+        Loja loja = lojaRepository.findById(lojaId).orElse(null);
+        if (loja == null) {
+            return ResponseEntity.badRequest().body("Loja não encontrada");
+        }
+
+        ImportacaoClientes.Formato formato = contentType.startsWith("application/x-ndjson")
+                ? ImportacaoClientes.Formato.NDJSON
+                : ImportacaoClientes.Formato.CSV;
+
+        BufferedReader leitor = new BufferedReader(
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+        try {
+            return ResponseEntity.ok(importacaoClientes.importar(loja, leitor, formato));
+        } finally {
+            buscaClientes.invalidarLoja(lojaId);
+        }
     }
 
     @GetMapping("/{id}")
@@ -41,28 +120,42 @@ public class ClienteController {
         }
         cliente.setId(null);
         cliente.setLoja(loja);
-        return ResponseEntity.ok(clienteRepository.save(cliente));
+        try {
+            Cliente salvo = clienteRepository.save(cliente);
+            buscaClientes.clienteGravado(salvo);
+            return ResponseEntity.ok(salvo);
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.badRequest().body(CONTATO_REPETIDO);
+        }
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<?> atualizar(@PathVariable Long id, @RequestBody Cliente cliente) {
-        return clienteRepository.findById(id)
-                .map(existing -> {
-                    existing.setNome(cliente.getNome());
-                    existing.setTelefone(cliente.getTelefone());
-                    existing.setEmail(cliente.getEmail());
-                    existing.setAnotacoes(cliente.getAnotacoes());
-                    return ResponseEntity.ok(clienteRepository.save(existing));
-                })
-                .orElse(ResponseEntity.notFound().build());
+        try {
+            return clienteRepository.findById(id)
+                    .map(existing -> {
+                        existing.setNome(cliente.getNome());
+                        existing.setTelefone(cliente.getTelefone());
+                        existing.setEmail(cliente.getEmail());
+                        existing.setAnotacoes(cliente.getAnotacoes());
+                        Cliente salvo = clienteRepository.save(existing);
+                        buscaClientes.clienteGravado(salvo);
+                        return ResponseEntity.ok(salvo);
+                    })
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.badRequest().body(CONTATO_REPETIDO);
+        }
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> excluir(@PathVariable Long id) {
-        if (!clienteRepository.existsById(id)) {
+        Cliente cliente = clienteRepository.findById(id).orElse(null);
+        if (cliente == null) {
             return ResponseEntity.notFound().build();
         }
         clienteRepository.deleteById(id);
+        buscaClientes.clienteExcluido(cliente.getLoja().getId(), id);
         return ResponseEntity.noContent().build();
     }
 }
@@ -4,8 +4,14 @@ import com.marcahora.model.CampoPersonalizado;
 import com.marcahora.model.Loja;
 import com.marcahora.repository.CampoPersonalizadoRepository;
 import com.marcahora.repository.LojaRepository;
+import com.marcahora.service.HorarioService;
+import com.marcahora.service.RespostasCampos;
+import com.marcahora.service.VersoesLoja;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.*;
 
@@ -15,18 +21,33 @@ public class ConfiguracoesController {
 
     private final LojaRepository lojaRepository;
     private final CampoPersonalizadoRepository campoPersonalizadoRepository;
+    private final HorarioService horarioService;
+    private final RespostasCampos respostasCampos;
+    private final VersoesLoja versoesLoja;
+    private final TransactionTemplate transactionTemplate;
 
     public ConfiguracoesController(LojaRepository lojaRepository,
-                                   CampoPersonalizadoRepository campoPersonalizadoRepository) {
+                                   CampoPersonalizadoRepository campoPersonalizadoRepository,
+                                   HorarioService horarioService,
+                                   RespostasCampos respostasCampos,
+                                   VersoesLoja versoesLoja,
+                                   TransactionTemplate transactionTemplate) {
         this.lojaRepository = lojaRepository;
         this.campoPersonalizadoRepository = campoPersonalizadoRepository;
+        this.horarioService = horarioService;
+        this.respostasCampos = respostasCampos;
+        this.versoesLoja = versoesLoja;
+        this.transactionTemplate = transactionTemplate;
     }
 
     // --------------------------------------------------------------------
     // 1) Obter todas as configurações da loja (dados + campos personalizados)
     // --------------------------------------------------------------------
     @GetMapping("/{lojaId}")
-    public ResponseEntity<?> obterConfiguracoes(@PathVariable Long lojaId) {
+    public ResponseEntity<?> obterConfiguracoes(@PathVariable Long lojaId, ServletWebRequest request) {
+        if (versoesLoja.naoModificada(lojaId, request, VersoesLoja.PRIVADO)) {
+            return null;
+        }
         Optional<Loja> optLoja = lojaRepository.findById(lojaId);
         if (optLoja.isEmpty()) {
             return ResponseEntity.notFound().build();
@@ -79,6 +100,7 @@ public class ConfiguracoesController {
     // 2) Atualizar informações básicas da loja
     // --------------------------------------------------------------------
     @PutMapping("/{lojaId}/info")
+    @Transactional
     public ResponseEntity<?> salvarInfoLoja(@PathVariable Long lojaId,
                                             @RequestBody Map<String, Object> body) {
         return lojaRepository.findById(lojaId)
@@ -90,6 +112,7 @@ public class ConfiguracoesController {
                     loja.setCorPrimaria((String) body.getOrDefault("corPrimaria", loja.getCorPrimaria()));
                     loja.setCorSecundaria((String) body.getOrDefault("corSecundaria", loja.getCorSecundaria()));
                     Loja salvo = lojaRepository.save(loja);
+                    versoesLoja.alterada(lojaId);
                     return ResponseEntity.ok(salvo);
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -101,7 +124,8 @@ public class ConfiguracoesController {
     @PutMapping("/{lojaId}/horarios")
     public ResponseEntity<?> salvarHorarios(@PathVariable Long lojaId,
                                             @RequestBody Map<String, Object> body) {
-        return lojaRepository.findById(lojaId)
+        // Loja e versão na mesma transação; configuração e cache de horários só depois do commit
+        Loja salvo = transactionTemplate.execute(tx -> lojaRepository.findById(lojaId)
                 .map(loja -> {
                     loja.setHorarioAbertura((String) body.getOrDefault("abertura", loja.getHorarioAbertura()));
                     loja.setHorarioFechamento((String) body.getOrDefault("fechamento", loja.getHorarioFechamento()));
@@ -124,16 +148,24 @@ public class ConfiguracoesController {
                         loja.setDiasFuncionamento(join);
                     }
 
-                    Loja salvo = lojaRepository.save(loja);
-                    return ResponseEntity.ok(salvo);
+                    Loja atualizada = lojaRepository.save(loja);
+                    versoesLoja.alterada(lojaId);
+                    return atualizada;
                 })
-                .orElse(ResponseEntity.notFound().build());
+                .orElse(null));
+
+        if (salvo == null) {
+            return ResponseEntity.notFound().build();
+        }
+        horarioService.atualizarConfiguracao(salvo);
+        return ResponseEntity.ok(salvo);
     }
 
     // --------------------------------------------------------------------
     // 4) Atualizar campos obrigatórios do cliente
     // --------------------------------------------------------------------
     @PutMapping("/{lojaId}/campos-obrigatorios")
+    @Transactional
     public ResponseEntity<?> salvarCamposObrigatorios(@PathVariable Long lojaId,
                                                       @RequestBody Map<String, Object> body) {
         return lojaRepository.findById(lojaId)
@@ -153,6 +185,7 @@ public class ConfiguracoesController {
                     }
 
                     Loja salvo = lojaRepository.save(loja);
+                    versoesLoja.alterada(lojaId);
                     return ResponseEntity.ok(salvo);
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -162,6 +195,7 @@ public class ConfiguracoesController {
     // 4.1) Atualizar campos visíveis do cliente
     // --------------------------------------------------------------------
     @PutMapping("/{lojaId}/campos-visiveis")
+    @Transactional
     public ResponseEntity<?> salvarCamposVisiveis(@PathVariable Long lojaId,
                                                    @RequestBody Map<String, Object> body) {
         return lojaRepository.findById(lojaId)
@@ -185,6 +219,7 @@ public class ConfiguracoesController {
                     }
 
                     Loja salvo = lojaRepository.save(loja);
+                    versoesLoja.alterada(lojaId);
                     return ResponseEntity.ok(salvo);
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -196,7 +231,8 @@ public class ConfiguracoesController {
     @PutMapping("/{lojaId}/modos")
     public ResponseEntity<?> salvarModos(@PathVariable Long lojaId,
                                          @RequestBody Map<String, Object> body) {
-        return lojaRepository.findById(lojaId)
+        // Loja e versão na mesma transação; configuração e cache de horários só depois do commit
+        Loja salvo = transactionTemplate.execute(tx -> lojaRepository.findById(lojaId)
                 .map(loja -> {
                     Object usaServicos = body.get("usaServicos");
                     Object usaProfissionais = body.get("usaProfissionais");
@@ -208,22 +244,33 @@ public class ConfiguracoesController {
                         loja.setUsaProfissionais((Boolean) usaProfissionais);
                     }
 
-                    Loja salvo = lojaRepository.save(loja);
-                    return ResponseEntity.ok(salvo);
+                    Loja atualizada = lojaRepository.save(loja);
+                    versoesLoja.alterada(lojaId);
+                    return atualizada;
                 })
-                .orElse(ResponseEntity.notFound().build());
+                .orElse(null));
+
+        if (salvo == null) {
+            return ResponseEntity.notFound().build();
+        }
+        horarioService.atualizarConfiguracao(salvo);
+        return ResponseEntity.ok(salvo);
     }
 
     // --------------------------------------------------------------------
     // 6) CAMPOS PERSONALIZADOS
     // --------------------------------------------------------------------
     @GetMapping("/{lojaId}/campos-personalizados")
-    public ResponseEntity<List<CampoPersonalizado>> listarCampos(@PathVariable Long lojaId) {
+    public ResponseEntity<List<CampoPersonalizado>> listarCampos(@PathVariable Long lojaId, ServletWebRequest request) {
+        if (versoesLoja.naoModificada(lojaId, request, VersoesLoja.PRIVADO)) {
+            return null;
+        }
         List<CampoPersonalizado> lista = campoPersonalizadoRepository.findByLojaId(lojaId);
         return ResponseEntity.ok(lista);
     }
 
     @PostMapping("/{lojaId}/campos-personalizados")
+    @Transactional
     public ResponseEntity<?> adicionarCampo(@PathVariable Long lojaId,
                                             @RequestBody Map<String, Object> body) {
         Optional<Loja> optLoja = lojaRepository.findById(lojaId);
@@ -247,10 +294,12 @@ public class ConfiguracoesController {
         campo.setObrigatorio(obrigatorio);
 
         CampoPersonalizado salvo = campoPersonalizadoRepository.save(campo);
+        versoesLoja.alterada(lojaId);
         return ResponseEntity.ok(salvo);
     }
 
     @DeleteMapping("/{lojaId}/campos-personalizados/{campoId}")
+    @Transactional
     public ResponseEntity<Void> removerCampo(@PathVariable Long lojaId,
                                              @PathVariable Long campoId) {
         Optional<CampoPersonalizado> optCampo = campoPersonalizadoRepository.findById(campoId);
@@ -261,7 +310,8 @@ public class ConfiguracoesController {
         if (!campo.getLoja().getId().equals(lojaId)) {
             return ResponseEntity.status(403).build();
         }
-        campoPersonalizadoRepository.delete(campo);
+        respostasCampos.excluirCampo(campo);
+        versoesLoja.alterada(lojaId);
         return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.marcahora.controller;
+
+import com.marcahora.repository.AgendamentoRepository;
+import com.marcahora.repository.ClienteRepository;
+import com.marcahora.repository.LojaRepository;
+import com.marcahora.repository.ServicoRepository;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resumo do painel da loja numa chamada só: contagens, faturamento e
+ * agendamentos do dia calculados no banco (COUNT / SUM / GROUP BY), com
+ * resposta de tamanho fixo, independente do volume da loja.
+ */
+@RestController
+@RequestMapping("/api/dashboard")
+public class DashboardController {
+
+    private static final int DIAS_PROXIMOS = 7;
+
+    private final LojaRepository lojaRepository;
+    private final AgendamentoRepository agendamentoRepository;
+    private final ClienteRepository clienteRepository;
+    private final ServicoRepository servicoRepository;
+
+    public DashboardController(LojaRepository lojaRepository,
+                               AgendamentoRepository agendamentoRepository,
+                               ClienteRepository clienteRepository,
+                               ServicoRepository servicoRepository) {
+        this.lojaRepository = lojaRepository;
+        this.agendamentoRepository = agendamentoRepository;
+        this.clienteRepository = clienteRepository;
+        this.servicoRepository = servicoRepository;
+    }
+
+    // ?data=yyyy-MM-dd define o "hoje" do painel (padrão: data do servidor)
+    @GetMapping("/{lojaId}")
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> resumo(
+            @PathVariable Long lojaId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate data) {
+        if (!lojaRepository.existsById(lojaId)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        LocalDate hoje = data != null ? data : LocalDate.now();
+        LocalDateTime inicioDia = hoje.atStartOfDay();
+        LocalDateTime fimDia = hoje.atTime(LocalTime.MAX);
+
+        // Hoje: quantidade por status e faturamento (cancelados não contam)
+        Map<String, Long> porStatus = new LinkedHashMap<>();
+        long totalHoje = 0;
+        BigDecimal faturamentoHoje = BigDecimal.ZERO;
+        for (Object[] linha : agendamentoRepository.resumirPorStatus(lojaId, inicioDia, fimDia)) {
+            String status = (String) linha[0];
+            long quantidade = ((Number) linha[1]).longValue();
+            porStatus.put(status, quantidade);
+            totalHoje += quantidade;
+            if (!"CANCELADO".equals(status)) {
+                faturamentoHoje = faturamentoHoje.add(paraDecimal(linha[2]));
+            }
+        }
+
+        // Próximos: a partir de agora (ou do início do dia pedido) até o fim do dia e em 7 dias
+        LocalDateTime agora = hoje.equals(LocalDate.now()) ? LocalDateTime.now() : inicioDia;
+        List<Object[]> proximos = agendamentoRepository.contarProximos(
+                lojaId, agora, hoje.plusDays(1).atStartOfDay(), agora.plusDays(DIAS_PROXIMOS));
+        Object[] contagem = proximos.isEmpty() ? new Object[] { 0L, 0L } : proximos.get(0);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("data", hoje.toString());
+        body.put("totalClientes", clienteRepository.countByLojaId(lojaId));
+        body.put("totalServicos", servicoRepository.countByLojaId(lojaId));
+        body.put("agendamentosHoje", totalHoje);
+        body.put("agendamentosHojePorStatus", porStatus);
+        body.put("faturamentoHoje", faturamentoHoje);
+        body.put("restantesHoje", ((Number) contagem[0]).longValue());
+        body.put("proximos7Dias", ((Number) contagem[1]).longValue());
+        return ResponseEntity.ok(body);
+    }
+
+    private static BigDecimal paraDecimal(Object valor) {
+        if (valor instanceof BigDecimal decimal) return decimal;
+        return valor == null ? BigDecimal.ZERO : new BigDecimal(valor.toString());
+    }
+}
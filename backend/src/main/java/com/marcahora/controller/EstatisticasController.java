@@ -0,0 +1,56 @@
+package com.marcahora.controller;
+
+import com.marcahora.repository.LojaRepository;
+import com.marcahora.service.EstatisticasDiarias;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/estatisticas")
+public class EstatisticasController {
+
+    private static final int MAX_DIAS_RELATORIO = 366;
+    private static final Set<String> AGRUPAMENTOS = Set.of("dia", "profissional", "servico");
+
+    private final LojaRepository lojaRepository;
+    private final EstatisticasDiarias estatisticasDiarias;
+
+    public EstatisticasController(LojaRepository lojaRepository, EstatisticasDiarias estatisticasDiarias) {
+        this.lojaRepository = lojaRepository;
+        this.estatisticasDiarias = estatisticasDiarias;
+    }
+
+    // Totais do período a partir da tabela de totais diários: ?inicio=&fim=&agrupar=dia|profissional|servico
+    @GetMapping("/loja/{lojaId}")
+    public ResponseEntity<?> relatorio(
+            @PathVariable Long lojaId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim,
+            @RequestParam(defaultValue = "dia") String agrupar) {
+        if (fim.isBefore(inicio) || inicio.plusDays(MAX_DIAS_RELATORIO).isBefore(fim)) {
+            return ResponseEntity.badRequest().body("Período inválido (máximo " + MAX_DIAS_RELATORIO + " dias)");
+        }
+        if (!AGRUPAMENTOS.contains(agrupar)) {
+            return ResponseEntity.badRequest().body("Agrupamento inválido");
+        }
+        return ResponseEntity.ok(estatisticasDiarias.relatorio(lojaId, inicio, fim, agrupar));
+    }
+
+    // Recalcula os totais da loja a partir dos agendamentos (carga inicial / correção)
+    @PostMapping("/loja/{lojaId}/reconstruir")
+    public ResponseEntity<?> reconstruir(@PathVariable Long lojaId) {
+        if (!lojaRepository.existsById(lojaId)) {
+            return ResponseEntity.notFound().build();
+        }
+        long inicio = System.nanoTime();
+        int linhas = estatisticasDiarias.reconstruir(lojaId);
+        return ResponseEntity.ok(Map.of(
+                "linhas", linhas,
+                "duracaoMs", (System.nanoTime() - inicio) / 1_000_000));
+    }
+}
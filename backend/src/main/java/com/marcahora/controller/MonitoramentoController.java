@@ -0,0 +1,132 @@
+package com.marcahora.controller;
+
+import com.marcahora.config.RoteamentoDataSource;
+import com.marcahora.service.ArquivamentoAgendamentos;
+import com.marcahora.service.BuscaClientes;
+import com.marcahora.service.CacheHorarios;
+import com.marcahora.service.ConsistenciaReplica;
+import com.marcahora.service.EventosAgenda;
+import com.marcahora.service.ReservasHorario;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/monitoramento")
+public class MonitoramentoController {
+
+    private final CacheHorarios cacheHorarios;
+    private final EventosAgenda eventosAgenda;
+    private final ReservasHorario reservasHorario;
+    private final Statistics estatisticasHibernate;
+    private final ArquivamentoAgendamentos arquivamentoAgendamentos;
+    private final ConsistenciaReplica consistenciaReplica;
+    private final RoteamentoDataSource roteamentoDataSource;
+    private final BuscaClientes buscaClientes;
+
+    public MonitoramentoController(CacheHorarios cacheHorarios,
+                                   EventosAgenda eventosAgenda,
+                                   ReservasHorario reservasHorario,
+                                   EntityManagerFactory entityManagerFactory,
+                                   ArquivamentoAgendamentos arquivamentoAgendamentos,
+                                   ConsistenciaReplica consistenciaReplica,
+                                   ObjectProvider<RoteamentoDataSource> roteamentoDataSource,
+                                   BuscaClientes buscaClientes) {
+        this.cacheHorarios = cacheHorarios;
+        this.eventosAgenda = eventosAgenda;
+        this.reservasHorario = reservasHorario;
+        this.estatisticasHibernate = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.arquivamentoAgendamentos = arquivamentoAgendamentos;
+        this.consistenciaReplica = consistenciaReplica;
+        // Só existe com marcahora.replica.url configurada
+        this.roteamentoDataSource = roteamentoDataSource.getIfAvailable();
+        this.buscaClientes = buscaClientes;
+    }
+
+    // Acertos, falhas, remoções e invalidações do cache de horários disponíveis
+    @GetMapping("/cache-horarios")
+    public Map<String, Object> cacheHorarios() {
+        return cacheHorarios.estatisticas();
+    }
+
+    // Conexões SSE abertas e quantos dias de loja estão sendo acompanhados
+    @GetMapping("/eventos-agenda")
+    public Map<String, Object> eventosAgenda() {
+        return eventosAgenda.estatisticas();
+    }
+
+    // Reservas temporárias de horário ainda ativas
+    @GetMapping("/reservas-horario")
+    public Map<String, Object> reservasHorario() {
+        return reservasHorario.estatisticas();
+    }
+
+    // Cache de segundo nível do Hibernate: total, consultas e cada região
+    @GetMapping("/cache-entidades")
+    public Map<String, Object> cacheEntidades() {
+        Statistics stats = estatisticasHibernate;
+
+        Map<String, Object> regioes = new LinkedHashMap<>();
+        for (String nome : stats.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regiao = stats.getDomainDataRegionStatistics(nome);
+            regioes.put(nome, contadores(regiao.getHitCount(), regiao.getMissCount(), regiao.getPutCount()));
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("entidades", contadores(stats.getSecondLevelCacheHitCount(),
+                stats.getSecondLevelCacheMissCount(), stats.getSecondLevelCachePutCount()));
+        body.put("consultas", contadores(stats.getQueryCacheHitCount(),
+                stats.getQueryCacheMissCount(), stats.getQueryCachePutCount()));
+        body.put("regioes", regioes);
+        return body;
+    }
+
+    // Arquivamento de agendamentos antigos: situação e última execução
+    @GetMapping("/arquivamento")
+    public Map<String, Object> arquivamento() {
+        return arquivamentoAgendamentos.estatisticas();
+    }
+
+    // Executa o arquivamento agora (além do agendamento diário)
+    @PostMapping("/arquivamento")
+    public ResponseEntity<?> arquivar() {
+        Map<String, Object> resumo = arquivamentoAgendamentos.arquivar();
+        if (resumo == null) {
+            return ResponseEntity.status(409).body("Arquivamento já em execução");
+        }
+        return ResponseEntity.ok(resumo);
+    }
+
+    // Índices de busca de clientes em memória: lojas, clientes e tempo médio
+    @GetMapping("/busca-clientes")
+    public Map<String, Object> buscaClientes() {
+        return buscaClientes.estatisticas();
+    }
+
+    // Réplica de leitura: conexões abertas em cada banco e lojas lendo do primário
+    @GetMapping("/replica")
+    public Map<String, Object> replica() {
+        Map<String, Object> stats = new LinkedHashMap<>(consistenciaReplica.estatisticas());
+        if (roteamentoDataSource != null) {
+            stats.putAll(roteamentoDataSource.estatisticas());
+        }
+        return stats;
+    }
+
+    private static Map<String, Object> contadores(long acertos, long falhas, long gravacoes) {
+        long total = acertos + falhas;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("acertos", acertos);
+        stats.put("falhas", falhas);
+        stats.put("taxaAcerto", total == 0 ? 0.0 : (double) acertos / total);
+        stats.put("gravacoes", gravacoes);
+        return stats;
+    }
+}
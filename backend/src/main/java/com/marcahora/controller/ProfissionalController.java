@@ -1,14 +1,18 @@
 package com.marcahora.controller;
 
+import com.marcahora.dto.Pagina;
 import com.marcahora.model.Loja;
 import com.marcahora.model.Profissional;
 import com.marcahora.repository.LojaRepository;
 import com.marcahora.repository.ProfissionalRepository;
+import com.marcahora.service.VersoesLoja;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/profissionais")
@@ -16,24 +20,53 @@ public class ProfissionalController {
 
     private final ProfissionalRepository profissionalRepository;
     private final LojaRepository lojaRepository;
+    private final VersoesLoja versoesLoja;
 
-    public ProfissionalController(ProfissionalRepository profissionalRepository, LojaRepository lojaRepository) {
+    public ProfissionalController(ProfissionalRepository profissionalRepository, LojaRepository lojaRepository,
+                                  VersoesLoja versoesLoja) {
         this.profissionalRepository = profissionalRepository;
         this.lojaRepository = lojaRepository;
+        this.versoesLoja = versoesLoja;
     }
 
+    // Paginação por cursor: ?cursor=<proximoCursor da página anterior>&limite=50
     @GetMapping("/loja/{lojaId}")
-    public List<Profissional> listarPorLoja(@PathVariable Long lojaId) {
-        return profissionalRepository.findByLojaId(lojaId);
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> listarPorLoja(
+            @PathVariable Long lojaId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite,
+            ServletWebRequest request) {
+        if (versoesLoja.naoModificada(lojaId, request, VersoesLoja.PRIVADO)) {
+            return null;
+        }
+        int tamanho = Pagina.tamanho(limite);
+        Limit limiteConsulta = Limit.of(tamanho + 1);
+
+        List<Profissional> linhas;
+        if (cursor == null || cursor.isBlank()) {
+            linhas = profissionalRepository.findByLojaIdOrderByIdAsc(lojaId, limiteConsulta);
+        } else {
+            Long aposId;
+            try {
+                aposId = Long.valueOf(cursor);
+            } catch (NumberFormatException e) {
+                return ResponseEntity.badRequest().body("Cursor inválido");
+            }
+            linhas = profissionalRepository.findByLojaIdAndIdGreaterThanOrderByIdAsc(lojaId, aposId, limiteConsulta);
+        }
+
+        return ResponseEntity.ok(Pagina.de(linhas, tamanho, c -> String.valueOf(c.getId())));
     }
 
     // Endpoint público - retorna apenas profissionais ativos
     @GetMapping("/public/loja/{lojaId}")
-    public List<Profissional> listarAtivosPublico(@PathVariable Long lojaId) {
-        return profissionalRepository.findByLojaId(lojaId)
-                .stream()
-                .filter(p -> p.getAtivo() != null && p.getAtivo())
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public List<Profissional> listarAtivosPublico(@PathVariable Long lojaId, ServletWebRequest request) {
+        if (versoesLoja.naoModificada(lojaId, request, VersoesLoja.PUBLICO)) {
+            return null;
+        }
+        return profissionalRepository.findByLojaIdAndAtivoTrue(lojaId);
     }
 
     @GetMapping("/{id}")
@@ -44,6 +77,7 @@ public class ProfissionalController {
     }
 
     @PostMapping("/loja/{lojaId}")
+    @Transactional
     public ResponseEntity<?> criar(@PathVariable Long lojaId, @RequestBody Profissional profissional) {
         Loja loja = lojaRepository.findById(lojaId).orElse(null);
         if (loja == null) {
@@ -54,10 +88,13 @@ public class ProfissionalController {
         if (profissional.getAtivo() == null) {
             profissional.setAtivo(true);
         }
-        return ResponseEntity.ok(profissionalRepository.save(profissional));
+        Profissional salvo = profissionalRepository.save(profissional);
+        versoesLoja.alterada(lojaId);
+        return ResponseEntity.ok(salvo);
     }
 
     @PutMapping("/{id}")
+    @Transactional
     public ResponseEntity<?> atualizar(@PathVariable Long id, @RequestBody Profissional profissional) {
         return profissionalRepository.findById(id)
                 .map(existing -> {
@@ -65,17 +102,26 @@ public class ProfissionalController {
                     existing.setEmail(profissional.getEmail());
                     existing.setTelefone(profissional.getTelefone());
                     existing.setAtivo(profissional.getAtivo());
-                    return ResponseEntity.ok(profissionalRepository.save(existing));
+                    Profissional salvo = profissionalRepository.save(existing);
+                    if (salvo.getLoja() != null) {
+                        versoesLoja.alterada(salvo.getLoja().getId());
+                    }
+                    return ResponseEntity.ok(salvo);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @DeleteMapping("/{id}")
+    @Transactional
     public ResponseEntity<Void> excluir(@PathVariable Long id) {
-        if (!profissionalRepository.existsById(id)) {
+        Profissional profissional = profissionalRepository.findById(id).orElse(null);
+        if (profissional == null) {
             return ResponseEntity.notFound().build();
         }
-        profissionalRepository.deleteById(id);
+        profissionalRepository.delete(profissional);
+        if (profissional.getLoja() != null) {
+            versoesLoja.alterada(profissional.getLoja().getId());
+        }
         return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
@@ -10,45 +10,92 @@ import com.marcahora.repository.ClienteRepository;
 import com.marcahora.repository.LojaRepository;
 import com.marcahora.repository.ProfissionalRepository;
 import com.marcahora.repository.ServicoRepository;
+import com.marcahora.service.BuscaClientes;
+import com.marcahora.service.EstatisticasDiarias;
+import com.marcahora.service.EventosAgenda;
 import com.marcahora.service.HorarioService;
+import com.marcahora.service.ReservasHorario;
+import com.marcahora.service.RespostasCampos;
+import com.marcahora.service.TravaAgenda;
+import com.marcahora.service.VersoesLoja;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.locks.Lock;
 
 @RestController
 @RequestMapping("/public")
 public class PublicAgendamentoController {
 
+    private static final int MAX_DIAS_PERIODO = 31;
+    private static final int MAX_DIAS_BUSCA = 90;
+    private static final int MAX_PROXIMOS = 50;
+
     private final LojaRepository lojaRepository;
     private final ServicoRepository servicoRepository;
     private final ClienteRepository clienteRepository;
     private final AgendamentoRepository agendamentoRepository;
     private final ProfissionalRepository profissionalRepository;
     private final HorarioService horarioService;
+    private final TravaAgenda travaAgenda;
+    private final EventosAgenda eventosAgenda;
+    private final ReservasHorario reservasHorario;
+    private final EstatisticasDiarias estatisticasDiarias;
+    private final RespostasCampos respostasCampos;
+    private final BuscaClientes buscaClientes;
+    private final VersoesLoja versoesLoja;
+    private final TransactionTemplate transactionTemplate;
 
     public PublicAgendamentoController(LojaRepository lojaRepository,
             ServicoRepository servicoRepository,
             ClienteRepository clienteRepository,
             AgendamentoRepository agendamentoRepository,
             ProfissionalRepository profissionalRepository,
-            HorarioService horarioService) {
+            HorarioService horarioService,
+            TravaAgenda travaAgenda,
+            EventosAgenda eventosAgenda,
+            ReservasHorario reservasHorario,
+            EstatisticasDiarias estatisticasDiarias,
+            RespostasCampos respostasCampos,
+            BuscaClientes buscaClientes,
+            VersoesLoja versoesLoja,
+            TransactionTemplate transactionTemplate) {
         this.lojaRepository = lojaRepository;
         this.servicoRepository = servicoRepository;
         this.clienteRepository = clienteRepository;
         this.agendamentoRepository = agendamentoRepository;
         this.profissionalRepository = profissionalRepository;
         this.horarioService = horarioService;
+        this.travaAgenda = travaAgenda;
+        this.eventosAgenda = eventosAgenda;
+        this.reservasHorario = reservasHorario;
+        this.estatisticasDiarias = estatisticasDiarias;
+        this.respostasCampos = respostasCampos;
+        this.buscaClientes = buscaClientes;
+        this.versoesLoja = versoesLoja;
+        this.transactionTemplate = transactionTemplate;
     }
 
     // =======================
     // INFO PÚBLICA DA LOJA
     // =======================
     @GetMapping("/loja/{id}")
-    public ResponseEntity<?> infoLoja(@PathVariable Long id) {
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> infoLoja(@PathVariable Long id, ServletWebRequest request) {
+        if (versoesLoja.naoModificada(id, request, VersoesLoja.PUBLICO)) {
+            return null;
+        }
         Optional<Loja> opt = lojaRepository.findById(id);
         if (opt.isEmpty()) {
             return ResponseEntity.status(404).body(Map.of("erro", "Loja não encontrada"));
@@ -78,9 +125,11 @@ public class PublicAgendamentoController {
     // HORÁRIOS DISPONÍVEIS
     // =======================
     @GetMapping("/agendamentos/horarios")
+    @Transactional(readOnly = true)
     public ResponseEntity<?> horariosDisponiveis(
             @RequestParam Long lojaId,
             @RequestParam(required = false) Long servicoId,
+            @RequestParam(required = false) Long profissionalId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate data) {
         Optional<Loja> optLoja = lojaRepository.findById(lojaId);
         if (optLoja.isEmpty()) {
@@ -96,13 +145,278 @@ public class PublicAgendamentoController {
             }
         }
 
-        List<String> horarios = horarioService.gerarHorariosDisponiveis(loja, data, servico);
+        Profissional profissional = null;
+        if (Boolean.TRUE.equals(loja.getUsaProfissionais()) && profissionalId != null) {
+            profissional = profissionalRepository.findById(profissionalId)
+                    .filter(p -> p.getLoja().getId().equals(lojaId))
+                    .orElse(null);
+            if (profissional == null) {
+                return ResponseEntity.badRequest().body("Profissional não encontrado");
+            }
+        }
+
+        List<String> horarios = horarioService.gerarHorariosDisponiveis(loja, data, servico, profissional);
 
         return ResponseEntity.ok(Map.of(
                 "data", data,
                 "horarios", horarios));
     }
 
+    // =======================
+    // HORÁRIOS DISPONÍVEIS POR PERÍODO (calendário)
+    // =======================
+    @GetMapping("/agendamentos/horarios/periodo")
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> horariosDisponiveisPorPeriodo(
+            @RequestParam Long lojaId,
+            @RequestParam(required = false) Long servicoId,
+            @RequestParam(required = false) Long profissionalId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFim) {
+        if (dataFim.isBefore(dataInicio)) {
+            return ResponseEntity.badRequest().body("Data final anterior à data inicial");
+        }
+        if (ChronoUnit.DAYS.between(dataInicio, dataFim) >= MAX_DIAS_PERIODO) {
+            return ResponseEntity.badRequest().body("Período máximo é de " + MAX_DIAS_PERIODO + " dias");
+        }
+
+        Optional<Loja> optLoja = lojaRepository.findById(lojaId);
+        if (optLoja.isEmpty()) {
+            return ResponseEntity.badRequest().body("Loja não encontrada");
+        }
+        Loja loja = optLoja.get();
+
+        Servico servico = null;
+        if (Boolean.TRUE.equals(loja.getUsaServicos()) && servicoId != null && servicoId > 0) {
+            servico = servicoRepository.findById(servicoId).orElse(null);
+            if (servico == null) {
+                return ResponseEntity.badRequest().body("Serviço não encontrado");
+            }
+        }
+
+        Profissional profissional = null;
+        if (Boolean.TRUE.equals(loja.getUsaProfissionais()) && profissionalId != null) {
+            profissional = profissionalRepository.findById(profissionalId)
+                    .filter(p -> p.getLoja().getId().equals(lojaId))
+                    .orElse(null);
+            if (profissional == null) {
+                return ResponseEntity.badRequest().body("Profissional não encontrado");
+            }
+        }
+
+        Map<LocalDate, List<String>> dias =
+                horarioService.gerarHorariosPorPeriodo(loja, dataInicio, dataFim, servico, profissional);
+
+        return ResponseEntity.ok(Map.of(
+                "dataInicio", dataInicio,
+                "dataFim", dataFim,
+                "dias", dias));
+    }
+
+    // =======================
+    // PRÓXIMOS HORÁRIOS LIVRES ("o mais cedo possível")
+    // =======================
+    @GetMapping("/agendamentos/horarios/proximos")
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> proximosHorarios(
+            @RequestParam Long lojaId,
+            @RequestParam(required = false) Long servicoId,
+            @RequestParam(required = false) Long profissionalId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInicio,
+            @RequestParam(defaultValue = "5") int quantidade) {
+        if (quantidade < 1 || quantidade > MAX_PROXIMOS) {
+            return ResponseEntity.badRequest().body("Quantidade deve ser entre 1 e " + MAX_PROXIMOS);
+        }
+
+        Optional<Loja> optLoja = lojaRepository.findById(lojaId);
+        if (optLoja.isEmpty()) {
+            return ResponseEntity.badRequest().body("Loja não encontrada");
+        }
+        Loja loja = optLoja.get();
+
+        Servico servico = null;
+        if (Boolean.TRUE.equals(loja.getUsaServicos()) && servicoId != null && servicoId > 0) {
+            servico = servicoRepository.findById(servicoId).orElse(null);
+            if (servico == null) {
+                return ResponseEntity.badRequest().body("Serviço não encontrado");
+            }
+        }
+
+        Profissional profissional = null;
+        if (Boolean.TRUE.equals(loja.getUsaProfissionais()) && profissionalId != null) {
+            profissional = profissionalRepository.findById(profissionalId)
+                    .filter(p -> p.getLoja().getId().equals(lojaId))
+                    .orElse(null);
+            if (profissional == null) {
+                return ResponseEntity.badRequest().body("Profissional não encontrado");
+            }
+        }
+
+        LocalDate hoje = LocalDate.now();
+        LocalDate inicio = dataInicio == null || dataInicio.isBefore(hoje) ? hoje : dataInicio;
+
+        List<LocalDateTime> proximos = horarioService.buscarProximosHorarios(
+                loja, inicio, servico, profissional, quantidade, MAX_DIAS_BUSCA);
+
+        List<Map<String, Object>> horarios = new ArrayList<>(proximos.size());
+        for (LocalDateTime dataHora : proximos) {
+            horarios.add(Map.of(
+                    "data", dataHora.toLocalDate(),
+                    "horario", dataHora.toLocalTime().toString()));
+        }
+
+        return ResponseEntity.ok(Map.of(
+                "dataInicio", inicio,
+                "horarios", horarios));
+    }
+
+    // =======================
+    // HORÁRIOS COM QUALQUER PROFISSIONAL
+    // =======================
+    @GetMapping("/agendamentos/horarios/profissionais")
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> horariosComQualquerProfissional(
+            @RequestParam Long lojaId,
+            @RequestParam(required = false) Long servicoId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate data) {
+        Optional<Loja> optLoja = lojaRepository.findById(lojaId);
+        if (optLoja.isEmpty()) {
+            return ResponseEntity.badRequest().body("Loja não encontrada");
+        }
+        Loja loja = optLoja.get();
+
+        if (!Boolean.TRUE.equals(loja.getUsaProfissionais())) {
+            return ResponseEntity.badRequest().body("Loja não trabalha com profissionais");
+        }
+
+        Servico servico = null;
+        if (Boolean.TRUE.equals(loja.getUsaServicos()) && servicoId != null && servicoId > 0) {
+            servico = servicoRepository.findById(servicoId).orElse(null);
+            if (servico == null) {
+                return ResponseEntity.badRequest().body("Serviço não encontrado");
+            }
+        }
+
+        List<Profissional> ativos = profissionalRepository.findByLojaIdAndAtivoTrue(lojaId);
+        Map<String, List<Profissional>> livresPorHorario =
+                horarioService.gerarHorariosPorProfissional(loja, data, servico, ativos);
+
+        List<Map<String, Object>> horarios = new ArrayList<>(livresPorHorario.size());
+        livresPorHorario.forEach((horario, profissionais) -> {
+            List<Map<String, Object>> livres = new ArrayList<>(profissionais.size());
+            for (Profissional p : profissionais) {
+                livres.add(Map.of("id", p.getId(), "nome", p.getNome()));
+            }
+            horarios.add(Map.of("horario", horario, "profissionais", livres));
+        });
+
+        return ResponseEntity.ok(Map.of(
+                "data", data,
+                "horarios", horarios));
+    }
+
+    // =======================
+    // DISPONIBILIDADE AO VIVO (SSE)
+    // =======================
+    // Eventos "ocupado" / "liberado" com o intervalo afetado:
+    // {"data":"2025-12-10","inicio":"14:30","fim":"16:05","profissionalId":3}
+    @GetMapping(path = "/agendamentos/eventos", produces = "text/event-stream")
+    // (o tipo precisa ser ResponseEntity<SseEmitter> para o Spring tratar como stream,
+    // por isso os erros voltam sem corpo)
+    public ResponseEntity<SseEmitter> eventosDisponibilidade(
+            @RequestParam Long lojaId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate data) {
+        if (!lojaRepository.existsById(lojaId)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Limite de conexões atingido: o EventSource do navegador tenta de novo sozinho
+        SseEmitter emitter = eventosAgenda.assinar(lojaId, data);
+        if (emitter == null) {
+            return ResponseEntity.status(503).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    // =======================
+    // RESERVA TEMPORÁRIA DE HORÁRIO
+    // =======================
+    // Segura o horário enquanto o cliente preenche a confirmação;
+    // o token volta em "reservaToken" no /agendamentos/criar
+    @PostMapping("/agendamentos/reservas")
+    public ResponseEntity<?> reservarHorario(@RequestBody Map<String, Object> body) {
+        Long lojaId = Long.valueOf(body.get("lojaId").toString());
+        LocalDateTime dataHora = LocalDateTime.parse(body.get("dataHora").toString());
+
+        Long servicoId = null;
+        if (body.get("servicoId") != null) {
+            String s = body.get("servicoId").toString();
+            if (!s.isBlank() && !s.equals("0")) {
+                servicoId = Long.valueOf(s);
+            }
+        }
+
+        Long profissionalId = null;
+        if (body.get("profissionalId") != null) {
+            String p = body.get("profissionalId").toString();
+            if (!p.isBlank() && !p.equals("null")) {
+                profissionalId = Long.valueOf(p);
+            }
+        }
+
+        Optional<Loja> optLoja = lojaRepository.findById(lojaId);
+        if (optLoja.isEmpty()) {
+            return ResponseEntity.badRequest().body("Loja não encontrada");
+        }
+        Loja loja = optLoja.get();
+
+        Servico servico = null;
+        if (Boolean.TRUE.equals(loja.getUsaServicos()) && servicoId != null) {
+            servico = servicoRepository.findById(servicoId).orElse(null);
+            if (servico == null) {
+                return ResponseEntity.badRequest().body("Serviço não encontrado");
+            }
+        }
+
+        Profissional profissional = null;
+        if (profissionalId != null) {
+            profissional = profissionalRepository.findById(profissionalId)
+                    .filter(p -> p.getLoja().getId().equals(lojaId))
+                    .orElse(null);
+            if (profissional == null) {
+                return ResponseEntity.badRequest().body("Profissional não encontrado");
+            }
+        }
+
+        Lock trava = travaAgenda.doDia(lojaId, dataHora.toLocalDate());
+        trava.lock();
+        try {
+            if (!horarioService.estaDisponivel(loja, dataHora, servico, profissional)) {
+                return ResponseEntity.status(409).body("Horário não está mais disponível.");
+            }
+
+            ReservasHorario.Reserva reserva = horarioService.reservar(loja, dataHora, servico, profissional);
+            if (reserva == null) {
+                return ResponseEntity.status(503).body("Muitas reservas em andamento, tente novamente.");
+            }
+
+            Map<String, Object> resp = new LinkedHashMap<>();
+            resp.put("reservaToken", reserva.token());
+            resp.put("expiraEmSegundos", reservasHorario.duracao().toSeconds());
+            return ResponseEntity.ok(resp);
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    @DeleteMapping("/agendamentos/reservas/{token}")
+    public ResponseEntity<?> liberarReserva(@PathVariable String token) {
+        if (!reservasHorario.liberar(token)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
     // =======================
     // CRIAR AGENDAMENTO PÚBLICO
     // =======================
@@ -115,6 +429,7 @@ public class PublicAgendamentoController {
             String telefone = Objects.toString(body.get("telefone"), "").trim();
             String email = Objects.toString(body.get("email"), "").trim();
             String observacoes = Objects.toString(body.get("observacoes"), "").trim();
+            String reservaToken = Objects.toString(body.get("reservaToken"), "").trim();
 
             Long servicoId = null;
             if (body.containsKey("servicoId") && body.get("servicoId") != null) {
@@ -147,6 +462,14 @@ public class PublicAgendamentoController {
                 return ResponseEntity.badRequest().body("E-mail é obrigatório.");
             }
 
+            // Respostas aos campos personalizados, conferidas com os campos da loja
+            Map<Long, String> respostas;
+            try {
+                respostas = respostasCampos.validar(lojaId, lerRespostas(body.get("camposPersonalizados")));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+
             Servico servico = null;
             if (Boolean.TRUE.equals(loja.getUsaServicos())) {
                 if (servicoId == null) {
@@ -159,61 +482,81 @@ public class PublicAgendamentoController {
             // NOVO: Buscar profissional
             Profissional profissional = null;
             if (profissionalId != null) {
-                profissional = profissionalRepository.findById(profissionalId).orElse(null);
+                profissional = profissionalRepository.findById(profissionalId)
+                        .filter(p -> p.getLoja().getId().equals(lojaId))
+                        .orElse(null);
+                if (profissional == null) {
+                    return ResponseEntity.badRequest().body("Profissional não encontrado");
+                }
             }
 
             LocalDateTime dataHora = LocalDateTime.parse(dataHoraStr);
 
-            // Última validação: checar se o horário ainda está disponível
-            List<String> horarios = horarioService.gerarHorariosDisponiveis(loja, dataHora.toLocalDate(), servico);
-            String horarioStr = dataHora.toLocalTime().toString();
-            if (!horarios.contains(horarioStr)) {
-                return ResponseEntity.badRequest().body("Horário não está mais disponível.");
-            }
-
-            // Buscar ou criar cliente
-            Cliente cliente = null;
-            if (!email.isEmpty()) {
-                cliente = clienteRepository.findByEmailAndLojaId(email, lojaId).orElse(null);
-            }
-            if (cliente == null && !telefone.isEmpty()) {
-                cliente = clienteRepository.findByTelefoneAndLojaId(telefone, lojaId).orElse(null);
-            }
-            if (cliente == null) {
-                cliente = new Cliente();
-                cliente.setNome(nome);
-                cliente.setTelefone(telefone);
-                cliente.setEmail(email);
-                cliente.setLoja(loja);
-                clienteRepository.save(cliente);
-            } else {
-                // Atualiza dados básicos, se vierem preenchidos
-                if (!nome.isEmpty())
-                    cliente.setNome(nome);
-                if (!telefone.isEmpty())
-                    cliente.setTelefone(telefone);
-                if (!email.isEmpty())
-                    cliente.setEmail(email);
-                clienteRepository.save(cliente);
-            }
-
-            // Criar agendamento
-            Agendamento ag = new Agendamento();
-            ag.setLoja(loja);
-            ag.setCliente(cliente);
-            ag.setServico(servico);
-            ag.setProfissional(profissional); // NOVO: Seta o profissional
-            ag.setDataHora(dataHora);
-            ag.setObservacoes(observacoes);
-            ag.setStatus("AGENDADO"); // se tiver enum depois, adaptamos
-
-            agendamentoRepository.save(ag);
+            // Verificação + gravação protegidas pela trava do dia:
+            // dois pedidos para o mesmo horário não passam juntos pela validação
+            Lock trava = travaAgenda.doDia(lojaId, dataHora.toLocalDate());
+            trava.lock();
+            try {
+                // A reserva do próprio cliente precisa ser deste horário; ela só
+                // sai depois do commit, e se a gravação falhar continua segurando
+                // o horário até vencer
+                ReservasHorario.Reserva reserva = null;
+                if (!reservaToken.isEmpty()) {
+                    reserva = horarioService.reservaDoHorario(reservaToken, loja, dataHora, servico, profissional);
+                    if (reserva == null) {
+                        return ResponseEntity.status(409).body("Reserva expirada ou de outro horário.");
+                    }
+                }
 
-            Map<String, Object> resp = new LinkedHashMap<>();
-            resp.put("mensagem", "Agendamento criado com sucesso.");
-            resp.put("agendamentoId", ag.getId());
+                // Última validação: checar se o horário ainda está disponível
+                if (!horarioService.estaDisponivel(loja, dataHora, servico, profissional, reserva)) {
+                    return ResponseEntity.badRequest().body("Horário não está mais disponível.");
+                }
 
-            return ResponseEntity.ok(resp);
+                // Cliente, agendamento, respostas e totais diários numa transação só
+                final Servico servicoAgendado = servico;
+                final Profissional profissionalAgendado = profissional;
+                TransactionCallback<Agendamento> gravacao = status -> {
+                    Cliente cliente = clienteDoAgendamento(loja, nome, email, telefone);
+
+                    // Criar agendamento
+                    Agendamento novo = new Agendamento();
+                    novo.setLoja(loja);
+                    novo.setCliente(cliente);
+                    novo.setServico(servicoAgendado);
+                    novo.setPreco(servicoAgendado != null ? servicoAgendado.getPreco() : null);
+                    novo.setProfissional(profissionalAgendado); // NOVO: Seta o profissional
+                    novo.setDataHora(dataHora);
+                    novo.setObservacoes(observacoes);
+                    novo.setStatus("AGENDADO"); // se tiver enum depois, adaptamos
+
+                    Agendamento salvo = agendamentoRepository.save(novo);
+                    respostasCampos.gravar(salvo.getId(), respostas);
+                    estatisticasDiarias.agendamentoCriado(salvo);
+                    return salvo;
+                };
+
+                Agendamento ag;
+                try {
+                    ag = transactionTemplate.execute(gravacao);
+                } catch (DataIntegrityViolationException e) {
+                    // O mesmo cliente novo foi criado ao mesmo tempo por outro agendamento:
+                    // na segunda tentativa ele é encontrado pelo contato
+                    ag = transactionTemplate.execute(gravacao);
+                }
+
+                reservasHorario.consumir(reserva);
+                horarioService.agendamentoCriado(ag);
+                buscaClientes.clienteGravado(ag.getCliente());
+
+                Map<String, Object> resp = new LinkedHashMap<>();
+                resp.put("mensagem", "Agendamento criado com sucesso.");
+                resp.put("agendamentoId", ag.getId());
+
+                return ResponseEntity.ok(resp);
+            } finally {
+                trava.unlock();
+            }
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -221,6 +564,69 @@ public class PublicAgendamentoController {
         }
     }
 
+    /**
+     * Cliente do agendamento: procura pelo e-mail ou telefone normalizados numa
+     * consulta só e cria se não existir. No existente só muda o que veio
+     * preenchido e é diferente; o dirty checking grava no commit apenas se
+     * algo mudou.
+     * O telefone não é trocado se já pertence a outro cliente da loja.
+     */
+    private Cliente clienteDoAgendamento(Loja loja, String nome, String email, String telefone) {
+        String emailChave = Cliente.normalizarEmail(email);
+        String telefoneChave = Cliente.normalizarTelefone(telefone);
+
+        Cliente porEmail = null;
+        Cliente porTelefone = null;
+        if (emailChave != null || telefoneChave != null) {
+            for (Cliente c : clienteRepository.buscarPorContato(loja.getId(), emailChave, telefoneChave)) {
+                if (emailChave != null && emailChave.equals(c.getEmailNormalizado())) {
+                    porEmail = c;
+                } else {
+                    porTelefone = c;
+                }
+            }
+        }
+
+        Cliente cliente = porEmail != null ? porEmail : porTelefone;
+        if (cliente == null) {
+            cliente = new Cliente();
+            cliente.setNome(nome);
+            cliente.setTelefone(telefone);
+            cliente.setEmail(email);
+            cliente.setLoja(loja);
+            return clienteRepository.save(cliente);
+        }
+
+        // Contato só é trocado se a chave mudou: "(11) 9..." e "119..." são o mesmo telefone
+        if (!nome.isEmpty())
+            cliente.setNome(nome);
+        if (telefoneChave != null && !telefoneChave.equals(cliente.getTelefoneNormalizado())
+                && (porTelefone == null || porTelefone == cliente))
+            cliente.setTelefone(telefone);
+        if (emailChave != null && !emailChave.equals(cliente.getEmailNormalizado()))
+            cliente.setEmail(email);
+        return cliente;
+    }
+
+    /** [{campoId, resposta}, ...] → campoId → resposta (na ordem recebida) */
+    private static Map<Long, String> lerRespostas(Object valor) {
+        Map<Long, String> respostas = new LinkedHashMap<>();
+        if (!(valor instanceof List<?> lista)) {
+            return respostas;
+        }
+        for (Object item : lista) {
+            if (!(item instanceof Map<?, ?> campo) || campo.get("campoId") == null) {
+                throw new IllegalArgumentException("Campo personalizado inválido.");
+            }
+            try {
+                respostas.put(Long.valueOf(campo.get("campoId").toString()), Objects.toString(campo.get("resposta"), ""));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Campo personalizado inválido.");
+            }
+        }
+        return respostas;
+    }
+
     public static class CampoPersonalizadoRespostaDTO {
         public Long campoId;
         public String resposta;
@@ -1,13 +1,21 @@
 package com.marcahora.controller;
 
+import com.marcahora.dto.Pagina;
 import com.marcahora.model.Loja;
 import com.marcahora.model.Servico;
 import com.marcahora.repository.LojaRepository;
 import com.marcahora.repository.ServicoRepository;
+import com.marcahora.service.HorarioService;
+import com.marcahora.service.VersoesLoja;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.List;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/servicos")
@@ -15,15 +23,48 @@ public class ServicoController {
 
     private final ServicoRepository servicoRepository;
     private final LojaRepository lojaRepository;
+    private final HorarioService horarioService;
+    private final VersoesLoja versoesLoja;
+    private final TransactionTemplate transactionTemplate;
 
-    public ServicoController(ServicoRepository servicoRepository, LojaRepository lojaRepository) {
+    public ServicoController(ServicoRepository servicoRepository, LojaRepository lojaRepository,
+                             HorarioService horarioService, VersoesLoja versoesLoja,
+                             TransactionTemplate transactionTemplate) {
         this.servicoRepository = servicoRepository;
         this.lojaRepository = lojaRepository;
+        this.horarioService = horarioService;
+        this.versoesLoja = versoesLoja;
+        this.transactionTemplate = transactionTemplate;
     }
 
+    // Paginação por cursor: ?cursor=<proximoCursor da página anterior>&limite=50
     @GetMapping("/loja/{lojaId}")
-    public List<Servico> listarPorLoja(@PathVariable Long lojaId) {
-        return servicoRepository.findByLojaId(lojaId);
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> listarPorLoja(
+            @PathVariable Long lojaId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite,
+            ServletWebRequest request) {
+        if (versoesLoja.naoModificada(lojaId, request, VersoesLoja.PRIVADO)) {
+            return null;
+        }
+        int tamanho = Pagina.tamanho(limite);
+        Limit limiteConsulta = Limit.of(tamanho + 1);
+
+        List<Servico> linhas;
+        if (cursor == null || cursor.isBlank()) {
+            linhas = servicoRepository.findByLojaIdOrderByIdAsc(lojaId, limiteConsulta);
+        } else {
+            Long aposId;
+            try {
+                aposId = Long.valueOf(cursor);
+            } catch (NumberFormatException e) {
+                return ResponseEntity.badRequest().body("Cursor inválido");
+            }
+            linhas = servicoRepository.findByLojaIdAndIdGreaterThanOrderByIdAsc(lojaId, aposId, limiteConsulta);
+        }
+
+        return ResponseEntity.ok(Pagina.de(linhas, tamanho, c -> String.valueOf(c.getId())));
     }
 
     @GetMapping("/{id}")
@@ -34,6 +75,7 @@ public class ServicoController {
     }
 
     @PostMapping("/loja/{lojaId}")
+    @Transactional
     public ResponseEntity<?> criar(@PathVariable Long lojaId, @RequestBody Servico servico) {
         Loja loja = lojaRepository.findById(lojaId).orElse(null);
         if (loja == null) {
@@ -41,28 +83,52 @@ public class ServicoController {
         }
         servico.setId(null);
         servico.setLoja(loja);
-        return ResponseEntity.ok(servicoRepository.save(servico));
+        Servico salvo = servicoRepository.save(servico);
+        versoesLoja.alterada(lojaId);
+        return ResponseEntity.ok(salvo);
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<?> atualizar(@PathVariable Long id, @RequestBody Servico servico) {
-        return servicoRepository.findById(id)
+        boolean[] duracaoMudou = new boolean[1];
+
+        // Serviço e versão da loja na mesma transação; cache de horários só depois do commit
+        Servico salvo = transactionTemplate.execute(tx -> servicoRepository.findById(id)
                 .map(existing -> {
+                    // A duração ocupa a agenda dos agendamentos já feitos com este serviço
+                    duracaoMudou[0] = !Objects.equals(existing.getDuracaoMinutos(), servico.getDuracaoMinutos());
                     existing.setNome(servico.getNome());
                     existing.setDescricao(servico.getDescricao());
                     existing.setDuracaoMinutos(servico.getDuracaoMinutos());
                     existing.setPreco(servico.getPreco());
-                    return ResponseEntity.ok(servicoRepository.save(existing));
+                    Servico atualizado = servicoRepository.save(existing);
+                    if (atualizado.getLoja() != null) {
+                        versoesLoja.alterada(atualizado.getLoja().getId());
+                    }
+                    return atualizado;
                 })
-                .orElse(ResponseEntity.notFound().build());
+                .orElse(null));
+
+        if (salvo == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (duracaoMudou[0] && salvo.getLoja() != null) {
+            horarioService.invalidarLoja(salvo.getLoja().getId());
+        }
+        return ResponseEntity.ok(salvo);
     }
 
     @DeleteMapping("/{id}")
+    @Transactional
     public ResponseEntity<Void> excluir(@PathVariable Long id) {
-        if (!servicoRepository.existsById(id)) {
+        Servico servico = servicoRepository.findById(id).orElse(null);
+        if (servico == null) {
             return ResponseEntity.notFound().build();
         }
-        servicoRepository.deleteById(id);
+        servicoRepository.delete(servico);
+        if (servico.getLoja() != null) {
+            versoesLoja.alterada(servico.getLoja().getId());
+        }
         return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.marcahora.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Linha das listagens de agendamentos: só o que a agenda mostra, montado
+ * direto na consulta (sem carregar Loja, Cliente, Serviço e Profissional).
+ */
+public record AgendamentoResumo(
+        Long id,
+        LocalDateTime dataHora,
+        String status,
+        String observacoes,
+        String clienteNome,
+        String clienteTelefone,
+        String servicoNome,
+        Integer servicoDuracaoMinutos,
+        Long profissionalId,
+        String profissionalNome) {
+}
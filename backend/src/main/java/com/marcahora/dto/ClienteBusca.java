@@ -0,0 +1,12 @@
+package com.marcahora.dto;
+
+/**
+ * Resultado da busca de clientes: os campos que a lista mostra, guardados
+ * no índice em memória (sem ir ao banco a cada busca).
+ */
+public record ClienteBusca(
+        Long id,
+        String nome,
+        String telefone,
+        String email) {
+}
@@ -0,0 +1,33 @@
+package com.marcahora.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de uma listagem por cursor (keyset): {@code proximoCursor} é null na
+ * última página. O cursor é opaco para o cliente; cada endpoint define o que
+ * vai nele (o id, ou data/hora + id).
+ */
+public record Pagina<T>(List<T> itens, String proximoCursor) {
+
+    public static final int TAMANHO_PADRAO = 50;
+    public static final int TAMANHO_MAXIMO = 200;
+
+    /** Tamanho pedido, limitado a [1, TAMANHO_MAXIMO] */
+    public static int tamanho(Integer limite) {
+        if (limite == null) return TAMANHO_PADRAO;
+        return Math.max(1, Math.min(limite, TAMANHO_MAXIMO));
+    }
+
+    /**
+     * Monta a página a partir de até {@code tamanho + 1} linhas: a linha extra
+     * só indica que existe próxima página e não é devolvida.
+     */
+    public static <T> Pagina<T> de(List<T> linhas, int tamanho, Function<T, String> cursorDe) {
+        if (linhas.size() <= tamanho) {
+            return new Pagina<>(linhas, null);
+        }
+        List<T> itens = linhas.subList(0, tamanho);
+        return new Pagina<>(itens, cursorDe.apply(itens.get(tamanho - 1)));
+    }
+}
@@ -0,0 +1,12 @@
+package com.marcahora.dto;
+
+/**
+ * Resposta de um campo personalizado, com a pergunta, pronta para a agenda
+ * agrupar por agendamento.
+ */
+public record RespostaCampoResumo(
+        Long agendamentoId,
+        Long campoId,
+        String pergunta,
+        String resposta) {
+}
@@ -0,0 +1,13 @@
+package com.marcahora.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Versão da configuração de uma loja, lida sem carregar a entidade, para
+ * responder requisições condicionais (ETag / Last-Modified).
+ */
+public record VersaoLoja(
+        Long lojaId,
+        Long versao,
+        LocalDateTime atualizadoEm) {
+}
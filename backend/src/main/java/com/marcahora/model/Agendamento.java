@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Data;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
@@ -37,6 +38,9 @@ public class Agendamento {
     @Column(length = 500)
     private String observacoes;
 
+    // Preço do serviço quando o agendamento foi criado; os totais usam este, não o atual
+    private BigDecimal preco;
+
     @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "loja_id")
     @JsonIgnoreProperties({"agendamentos", "clientes", "servicos", "profissionais"})
@@ -0,0 +1,52 @@
+package com.marcahora.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Agendamento movido para o arquivo (tabela agendamento_arquivo), com o
+ * mesmo formato e id de {@link Agendamento}. Só leitura: as linhas são
+ * copiadas por ArquivamentoAgendamentos.
+ */
+@Data
+@Entity
+@Table(name = "agendamento_arquivo")
+public class AgendamentoArquivado {
+
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "cliente_id")
+    @JsonIgnoreProperties({"agendamentos", "loja"})
+    private Cliente cliente;
+
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "servico_id")
+    @JsonIgnoreProperties({"loja"})
+    private Servico servico;
+
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "profissional_id")
+    @JsonIgnoreProperties({"loja"})
+    private Profissional profissional;
+
+    private LocalDateTime dataHora;
+
+    @Column(length = 20)
+    private String status;
+
+    @Column(length = 500)
+    private String observacoes;
+
+    private BigDecimal preco;
+
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "loja_id")
+    @JsonIgnoreProperties({"agendamentos", "clientes", "servicos", "profissionais"})
+    private Loja loja;
+}
@@ -1,22 +1,34 @@
 package com.marcahora.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
 
 import java.time.LocalDateTime;
+import java.util.Locale;
 
 @Data
 @Entity
 public class Cliente {
 
+    // Sequence em blocos (em vez de IDENTITY) para os inserts irem em lote na importação
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cliente_seq")
+    @SequenceGenerator(name = "cliente_seq", sequenceName = "cliente_seq", allocationSize = 50)
     private Long id;
 
     private String nome;
     private String telefone;
     private String email;
 
+    // Chaves de busca (únicas por loja): e-mail em minúsculas, telefone só com
+    // dígitos. Preenchidas a partir de email/telefone a cada gravação.
+    @JsonIgnore
+    private String emailNormalizado;
+
+    @JsonIgnore
+    private String telefoneNormalizado;
+
     private LocalDateTime criadoEm = LocalDateTime.now();
 
     @Column(length = 1000)
@@ -25,4 +37,32 @@ public class Cliente {
     @ManyToOne
     @JoinColumn(name = "loja_id")
     private Loja loja;
+
+    @PrePersist
+    @PreUpdate
+    void normalizarContato() {
+        emailNormalizado = normalizarEmail(email);
+        telefoneNormalizado = normalizarTelefone(telefone);
+    }
+
+    /** " Ana@Mail.com " → "ana@mail.com"; vazio → null */
+    public static String normalizarEmail(String email) {
+        if (email == null || email.isBlank()) return null;
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** "(11) 98765-4321" e "+55 11 98765-4321" → "11987654321"; sem dígitos → null */
+    public static String normalizarTelefone(String telefone) {
+        if (telefone == null) return null;
+        StringBuilder digitos = new StringBuilder(telefone.length());
+        for (int i = 0; i < telefone.length(); i++) {
+            char c = telefone.charAt(i);
+            if (c >= '0' && c <= '9') digitos.append(c);
+        }
+        // Código do país (55) na frente de DDD + número
+        if (digitos.length() >= 12 && digitos.charAt(0) == '5' && digitos.charAt(1) == '5') {
+            digitos.delete(0, 2);
+        }
+        return digitos.length() == 0 ? null : digitos.toString();
+    }
 }
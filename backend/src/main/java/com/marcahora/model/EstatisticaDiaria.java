@@ -0,0 +1,56 @@
+package com.marcahora.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Totais de agendamentos de um dia, por profissional e serviço.
+ * Mantida por EstatisticasDiarias; ids guardados como número (0 = sem
+ * profissional / sem serviço) para a chave única funcionar.
+ */
+@Data
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(
+        name = "uk_estatistica_diaria",
+        columnNames = {"loja_id", "data", "profissional_id", "servico_id"}))
+public class EstatisticaDiaria {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "loja_id", nullable = false)
+    private Long lojaId;
+
+    @Column(nullable = false)
+    private LocalDate data;
+
+    @Column(name = "profissional_id", nullable = false)
+    private Long profissionalId;
+
+    @Column(name = "servico_id", nullable = false)
+    private Long servicoId;
+
+    // quantidade = agendados + confirmados + concluidos + cancelados
+    @Column(nullable = false)
+    private Integer quantidade = 0;
+
+    @Column(nullable = false)
+    private Integer agendados = 0;      // AGENDADO e demais status
+
+    @Column(nullable = false)
+    private Integer confirmados = 0;
+
+    @Column(nullable = false)
+    private Integer concluidos = 0;
+
+    @Column(nullable = false)
+    private Integer cancelados = 0;
+
+    // Soma dos preços dos serviços, sem os cancelados
+    @Column(nullable = false)
+    private BigDecimal faturamento = BigDecimal.ZERO;
+}
@@ -1,10 +1,17 @@
 package com.marcahora.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import java.time.LocalDateTime;
 
 @Data
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Loja {
 
     @Id
@@ -52,6 +59,16 @@ public class Loja {
     private Boolean obrigarTelefone;
     private Boolean obrigarEmail;
 
+    // VERSÃO (ETag): só alterada por LojaRepository.incrementarVersao,
+    // nunca pelo save da entidade
+    @JsonIgnore
+    @Column(insertable = false, updatable = false)
+    private Long versao;
+
+    @JsonIgnore
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime atualizadoEm;
+
     @PrePersist
     @PreUpdate
     private void ajustarDefaults() {
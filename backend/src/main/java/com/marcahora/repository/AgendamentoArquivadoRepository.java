@@ -0,0 +1,105 @@
+package com.marcahora.repository;
+
+import com.marcahora.dto.AgendamentoResumo;
+import com.marcahora.model.AgendamentoArquivado;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface AgendamentoArquivadoRepository extends JpaRepository<AgendamentoArquivado, Long> {
+
+    // ============================
+    // LISTAGENS (mesmas projeções de AgendamentoRepository)
+    // ============================
+
+    String SELECT_RESUMO = "select new com.marcahora.dto.AgendamentoResumo("
+            + "a.id, a.dataHora, a.status, a.observacoes, "
+            + "c.nome, c.telefone, s.nome, s.duracaoMinutos, p.id, p.nome) "
+            + "from AgendamentoArquivado a "
+            + "left join a.cliente c "
+            + "left join a.servico s "
+            + "left join a.profissional p ";
+
+    @Query(SELECT_RESUMO + "where a.loja.id = :lojaId order by a.dataHora, a.id")
+    List<AgendamentoResumo> listarResumoPorLoja(@Param("lojaId") Long lojaId, Limit limite);
+
+    @Query(SELECT_RESUMO + "where a.loja.id = :lojaId "
+            + "and (a.dataHora > :dataHora or (a.dataHora = :dataHora and a.id > :id)) "
+            + "order by a.dataHora, a.id")
+    List<AgendamentoResumo> listarResumoPorLojaApos(
+            @Param("lojaId") Long lojaId,
+            @Param("dataHora") LocalDateTime dataHora,
+            @Param("id") Long id,
+            Limit limite);
+
+    @Query(SELECT_RESUMO + "where a.loja.id = :lojaId and a.dataHora between :inicio and :fim order by a.dataHora")
+    List<AgendamentoResumo> listarResumoPorPeriodo(
+            @Param("lojaId") Long lojaId,
+            @Param("inicio") LocalDateTime inicio,
+            @Param("fim") LocalDateTime fim);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(SELECT_RESUMO + "where a.loja.id = :lojaId and a.dataHora between :inicio and :fim "
+            + "order by a.dataHora, a.id")
+    Stream<AgendamentoResumo> streamResumoPorPeriodo(
+            @Param("lojaId") Long lojaId,
+            @Param("inicio") LocalDateTime inicio,
+            @Param("fim") LocalDateTime fim);
+
+    // Agendamento mais recente já arquivado (null se o arquivo está vazio)
+    @Query("select max(a.dataHora) from AgendamentoArquivado a")
+    LocalDateTime buscarUltimaDataHora();
+
+    // ============================
+    // ARQUIVAMENTO (um lote por transação)
+    // ============================
+
+    // Os "spaces" dizem ao Hibernate qual tabela muda, para não limpar o
+    // cache de segundo nível inteiro a cada comando nativo
+
+    @Query(nativeQuery = true, value = "select id from agendamento where data_hora < :corte order by id limit :limite")
+    List<Long> listarIdsParaArquivar(@Param("corte") LocalDateTime corte, @Param("limite") int limite);
+
+    // Mais recente do lote que acabou de ser copiado (pela chave primária)
+    @Query("select max(a.dataHora) from AgendamentoArquivado a where a.id in :ids")
+    LocalDateTime buscarUltimaDataHora(@Param("ids") Collection<Long> ids);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "agendamento_arquivo"))
+    @Modifying
+    @Query(nativeQuery = true, value = "insert into agendamento_arquivo "
+            + "(id, loja_id, cliente_id, servico_id, profissional_id, data_hora, status, observacoes, preco) "
+            + "select id, loja_id, cliente_id, servico_id, profissional_id, data_hora, status, observacoes, preco "
+            + "from agendamento where id in (:ids)")
+    int copiarAgendamentos(@Param("ids") Collection<Long> ids);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "resposta_campo_personalizado_arquivo"))
+    @Modifying
+    @Query(nativeQuery = true, value = "insert into resposta_campo_personalizado_arquivo "
+            + "(id, agendamento_id, campo_id, resposta) "
+            + "select id, agendamento_id, campo_id, resposta "
+            + "from resposta_campo_personalizado where agendamento_id in (:ids)")
+    int copiarRespostas(@Param("ids") Collection<Long> ids);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "resposta_campo_personalizado"))
+    @Modifying
+    @Query(nativeQuery = true, value = "delete from resposta_campo_personalizado where agendamento_id in (:ids)")
+    int excluirRespostas(@Param("ids") Collection<Long> ids);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "agendamento"))
+    @Modifying
+    @Query(nativeQuery = true, value = "delete from agendamento where id in (:ids)")
+    int excluirAgendamentos(@Param("ids") Collection<Long> ids);
+}
@@ -1,10 +1,18 @@
 package com.marcahora.repository;
 
+import com.marcahora.dto.AgendamentoResumo;
 import com.marcahora.model.Agendamento;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface AgendamentoRepository extends JpaRepository<Agendamento, Long> {
 
@@ -21,4 +29,71 @@ public interface AgendamentoRepository extends JpaRepository<Agendamento, Long>
             java.time.LocalDateTime inicio,
             java.time.LocalDateTime fim);
 
+    // ============================
+    // LISTAGENS (projeção, uma consulta só)
+    // ============================
+
+    String SELECT_RESUMO = "select new com.marcahora.dto.AgendamentoResumo("
+            + "a.id, a.dataHora, a.status, a.observacoes, "
+            + "c.nome, c.telefone, s.nome, s.duracaoMinutos, p.id, p.nome) "
+            + "from Agendamento a "
+            + "left join a.cliente c "
+            + "left join a.servico s "
+            + "left join a.profissional p ";
+
+    // Paginação por cursor (dataHora, id): primeira página e páginas seguintes
+    @Query(SELECT_RESUMO + "where a.loja.id = :lojaId order by a.dataHora, a.id")
+    List<AgendamentoResumo> listarResumoPorLoja(@Param("lojaId") Long lojaId, Limit limite);
+
+    @Query(SELECT_RESUMO + "where a.loja.id = :lojaId "
+            + "and (a.dataHora > :dataHora or (a.dataHora = :dataHora and a.id > :id)) "
+            + "order by a.dataHora, a.id")
+    List<AgendamentoResumo> listarResumoPorLojaApos(
+            @Param("lojaId") Long lojaId,
+            @Param("dataHora") LocalDateTime dataHora,
+            @Param("id") Long id,
+            Limit limite);
+
+    @Query(SELECT_RESUMO + "where a.loja.id = :lojaId and a.dataHora between :inicio and :fim order by a.dataHora")
+    List<AgendamentoResumo> listarResumoPorPeriodo(
+            @Param("lojaId") Long lojaId,
+            @Param("inicio") LocalDateTime inicio,
+            @Param("fim") LocalDateTime fim);
+
+    // Exportação: lida em stream, precisa de transação aberta enquanto consome
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(SELECT_RESUMO + "where a.loja.id = :lojaId and a.dataHora between :inicio and :fim "
+            + "order by a.dataHora, a.id")
+    Stream<AgendamentoResumo> streamResumoPorPeriodo(
+            @Param("lojaId") Long lojaId,
+            @Param("inicio") LocalDateTime inicio,
+            @Param("fim") LocalDateTime fim);
+
+    // ============================
+    // DASHBOARD (agregados, tamanho fixo)
+    // ============================
+
+    // [status, quantidade, soma dos preços gravados] do período; status sem valor conta como AGENDADO
+    @Query("select coalesce(upper(a.status), 'AGENDADO'), count(a), coalesce(sum(a.preco), 0) "
+            + "from Agendamento a "
+            + "where a.loja.id = :lojaId and a.dataHora between :inicio and :fim "
+            + "group by coalesce(upper(a.status), 'AGENDADO')")
+    List<Object[]> resumirPorStatus(
+            @Param("lojaId") Long lojaId,
+            @Param("inicio") LocalDateTime inicio,
+            @Param("fim") LocalDateTime fim);
+
+    // [até :corte, até :fim] de agendamentos não cancelados a partir de :inicio
+    @Query("select coalesce(sum(case when a.dataHora < :corte then 1 else 0 end), 0), count(a) "
+            + "from Agendamento a "
+            + "where a.loja.id = :lojaId and a.dataHora >= :inicio and a.dataHora < :fim "
+            + "and (a.status is null or lower(a.status) <> 'cancelado')")
+    List<Object[]> contarProximos(
+            @Param("lojaId") Long lojaId,
+            @Param("inicio") LocalDateTime inicio,
+            @Param("corte") LocalDateTime corte,
+            @Param("fim") LocalDateTime fim);
 }
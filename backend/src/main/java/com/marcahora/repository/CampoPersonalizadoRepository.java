@@ -1,11 +1,16 @@
 package com.marcahora.repository;
 
 import com.marcahora.model.CampoPersonalizado;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
 
 public interface CampoPersonalizadoRepository extends JpaRepository<CampoPersonalizado, Long> {
 
+    // Cache de consultas: o Hibernate invalida a cada escrita na tabela
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<CampoPersonalizado> findByLojaId(Long lojaId);
 }
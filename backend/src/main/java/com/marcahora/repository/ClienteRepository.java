@@ -1,19 +1,50 @@
 package com.marcahora.repository;
 
 import com.marcahora.model.Cliente;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-import java.util.Optional;
+import java.util.Collection;
 import java.util.List;
 
 public interface ClienteRepository extends JpaRepository<Cliente, Long> {
 
-    // Procurar por email dentro da loja
-    Optional<Cliente> findByEmailAndLojaId(String email, Long lojaId);
-
-    // Procurar por telefone dentro da loja
-    Optional<Cliente> findByTelefoneAndLojaId(String telefone, Long lojaId);
+    // Agendamento público: cliente da loja pelo e-mail ou pelo telefone (chaves normalizadas)
+    // numa consulta só; pode voltar dois clientes (um por chave).
+    // Union em vez de "or": cada lado usa o seu índice único; com "or" o banco
+    // lê todos os clientes da loja
+    @Query("select c from Cliente c where c.loja.id = :lojaId and c.emailNormalizado = :email "
+            + "union select c from Cliente c where c.loja.id = :lojaId and c.telefoneNormalizado = :telefone")
+    List<Cliente> buscarPorContato(@Param("lojaId") Long lojaId,
+                                   @Param("email") String emailNormalizado,
+                                   @Param("telefone") String telefoneNormalizado);
 
     // Listar clientes da loja
     List<Cliente> findByLojaId(Long lojaId);
+
+    // Chaves para deduplicar a importação: [id, email normalizado, telefone normalizado]
+    @Query("select c.id, c.emailNormalizado, c.telefoneNormalizado from Cliente c where c.loja.id = :lojaId")
+    List<Object[]> listarChavesPorLoja(@Param("lojaId") Long lojaId);
+
+    // As mesmas chaves, só dos clientes com um destes e-mails ou telefones (normalizados)
+    @Query("select c.id, c.emailNormalizado, c.telefoneNormalizado from Cliente c "
+            + "where c.loja.id = :lojaId and c.emailNormalizado in :emails "
+            + "union select c.id, c.emailNormalizado, c.telefoneNormalizado from Cliente c "
+            + "where c.loja.id = :lojaId and c.telefoneNormalizado in :telefones")
+    List<Object[]> listarChavesPorContato(@Param("lojaId") Long lojaId,
+                                          @Param("emails") Collection<String> emailsNormalizados,
+                                          @Param("telefones") Collection<String> telefonesNormalizados);
+
+    // Índice de busca em memória: [id, nome, telefone, email]
+    @Query("select c.id, c.nome, c.telefone, c.email from Cliente c where c.loja.id = :lojaId")
+    List<Object[]> listarParaBusca(@Param("lojaId") Long lojaId);
+
+    // Paginação por cursor (id): primeira página e páginas seguintes
+    List<Cliente> findByLojaIdOrderByIdAsc(Long lojaId, Limit limite);
+
+    List<Cliente> findByLojaIdAndIdGreaterThanOrderByIdAsc(Long lojaId, Long id, Limit limite);
+
+    long countByLojaId(Long lojaId);
 }
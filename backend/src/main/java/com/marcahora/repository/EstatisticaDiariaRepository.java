@@ -0,0 +1,64 @@
+package com.marcahora.repository;
+
+import com.marcahora.model.EstatisticaDiaria;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface EstatisticaDiariaRepository extends JpaRepository<EstatisticaDiaria, Long> {
+
+    // ============================
+    // RECONSTRUÇÃO (carga a partir dos agendamentos)
+    // ============================
+
+    @Modifying
+    @Query("delete from EstatisticaDiaria e where e.lojaId = :lojaId")
+    int excluirPorLoja(@Param("lojaId") Long lojaId);
+
+    // Agregação da migração V5, restrita a uma loja, incluindo o arquivo e com o preço gravado no agendamento
+    @Modifying
+    @Query(nativeQuery = true, value = "insert into estatistica_diaria (loja_id, data, profissional_id, servico_id, "
+            + "quantidade, agendados, confirmados, concluidos, cancelados, faturamento) "
+            + "select a.loja_id, cast(a.data_hora as date), coalesce(a.profissional_id, 0), coalesce(a.servico_id, 0), "
+            + "count(*), "
+            + "sum(case when a.status is null or lower(a.status) not in ('confirmado', 'concluido', 'cancelado') then 1 else 0 end), "
+            + "sum(case when lower(a.status) = 'confirmado' then 1 else 0 end), "
+            + "sum(case when lower(a.status) = 'concluido' then 1 else 0 end), "
+            + "sum(case when lower(a.status) = 'cancelado' then 1 else 0 end), "
+            + "coalesce(sum(case when a.status is null or lower(a.status) <> 'cancelado' then a.preco end), 0) "
+            + "from (select loja_id, data_hora, profissional_id, servico_id, status, preco from agendamento "
+            + "where loja_id = :lojaId "
+            + "union all select loja_id, data_hora, profissional_id, servico_id, status, preco from agendamento_arquivo "
+            + "where loja_id = :lojaId) a "
+            + "where a.data_hora is not null "
+            + "group by a.loja_id, cast(a.data_hora as date), coalesce(a.profissional_id, 0), coalesce(a.servico_id, 0)")
+    int carregarPorLoja(@Param("lojaId") Long lojaId);
+
+    // ============================
+    // RELATÓRIOS: [grupo, quantidade, agendados, confirmados, concluidos, cancelados, faturamento]
+    // ============================
+
+    String SOMAS = "sum(e.quantidade), sum(e.agendados), sum(e.confirmados), "
+            + "sum(e.concluidos), sum(e.cancelados), sum(e.faturamento) ";
+
+    String PERIODO = "from EstatisticaDiaria e where e.lojaId = :lojaId and e.data between :inicio and :fim ";
+
+    @Query("select e.data, " + SOMAS + PERIODO + "group by e.data order by e.data")
+    List<Object[]> somarPorDia(@Param("lojaId") Long lojaId,
+                               @Param("inicio") LocalDate inicio,
+                               @Param("fim") LocalDate fim);
+
+    @Query("select e.profissionalId, " + SOMAS + PERIODO + "group by e.profissionalId order by e.profissionalId")
+    List<Object[]> somarPorProfissional(@Param("lojaId") Long lojaId,
+                                        @Param("inicio") LocalDate inicio,
+                                        @Param("fim") LocalDate fim);
+
+    @Query("select e.servicoId, " + SOMAS + PERIODO + "group by e.servicoId order by e.servicoId")
+    List<Object[]> somarPorServico(@Param("lojaId") Long lojaId,
+                                   @Param("inicio") LocalDate inicio,
+                                   @Param("fim") LocalDate fim);
+}
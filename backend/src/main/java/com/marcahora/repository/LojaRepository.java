@@ -1,6 +1,30 @@
 package com.marcahora.repository;
 
+import com.marcahora.dto.VersaoLoja;
 import com.marcahora.model.Loja;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface LojaRepository extends JpaRepository<Loja, Long> { }
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface LojaRepository extends JpaRepository<Loja, Long> {
+
+    // Só as colunas de versão, para requisições condicionais
+    @Query("select new com.marcahora.dto.VersaoLoja(l.id, l.versao, l.atualizadoEm) from Loja l where l.id = :id")
+    Optional<VersaoLoja> buscarVersao(@Param("id") Long id);
+
+    // SQL nativo com um espaço de consulta que nenhuma entidade usa: um update
+    // JPQL (ou nativo sincronizado com "loja") faz o Hibernate descartar a região
+    // inteira de Loja no cache de segundo nível, de todas as lojas. A entrada da
+    // própria loja sai em VersoesLoja.alterada, depois do commit.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "loja_versao"))
+    @Query(nativeQuery = true, value = "update loja set versao = versao + 1, atualizado_em = :agora where id = :id")
+    int incrementarVersao(@Param("id") Long id, @Param("agora") LocalDateTime agora);
+}
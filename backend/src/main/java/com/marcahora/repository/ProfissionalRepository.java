@@ -1,11 +1,25 @@
 package com.marcahora.repository;
 
 import com.marcahora.model.Profissional;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
 
 public interface ProfissionalRepository extends JpaRepository<Profissional, Long> {
 
+    // Cache de consultas: o Hibernate invalida a cada escrita na tabela
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Profissional> findByLojaId(Long lojaId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Profissional> findByLojaIdAndAtivoTrue(Long lojaId);
+
+    // Paginação por cursor (id)
+    List<Profissional> findByLojaIdOrderByIdAsc(Long lojaId, Limit limite);
+
+    List<Profissional> findByLojaIdAndIdGreaterThanOrderByIdAsc(Long lojaId, Long id, Limit limite);
 }
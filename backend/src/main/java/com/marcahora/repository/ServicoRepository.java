@@ -1,10 +1,23 @@
 package com.marcahora.repository;
 
 import com.marcahora.model.Servico;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
 
 public interface ServicoRepository extends JpaRepository<Servico, Long> {
+    // Cache de consultas: o Hibernate invalida a cada escrita na tabela
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Servico> findByLojaId(Long lojaId);
+
+    // Paginação por cursor (id)
+    List<Servico> findByLojaIdOrderByIdAsc(Long lojaId, Limit limite);
+
+    List<Servico> findByLojaIdAndIdGreaterThanOrderByIdAsc(Long lojaId, Long id, Limit limite);
+
+    long countByLojaId(Long lojaId);
 }
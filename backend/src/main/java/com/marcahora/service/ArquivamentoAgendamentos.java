@@ -0,0 +1,141 @@
+package com.marcahora.service;
+
+import com.marcahora.repository.AgendamentoArquivadoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Move agendamentos antigos (e suas respostas de campos personalizados)
+ * para as tabelas de arquivo, para a tabela agendamento ficar só com o
+ * período recente e seus índices caberem em memória.
+ *
+ * Roda todo dia (marcahora.arquivo.cron) em lotes de ids, cada lote numa
+ * transação: copia, depois apaga da tabela quente. As listagens do painel
+ * juntam o arquivo só quando o período pedido chega nele
+ * ({@link #alcancaArquivo}); o limite avança a cada lote gravado, antes do
+ * próximo, para um agendamento nunca sumir das duas tabelas ao mesmo tempo. Os totais diários não mudam: a linha do dia
+ * continua em estatistica_diaria.
+ */
+@Service
+public class ArquivamentoAgendamentos {
+
+    private static final Logger log = LoggerFactory.getLogger(ArquivamentoAgendamentos.class);
+
+    private final AgendamentoArquivadoRepository arquivoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int diasNoQuente;
+    private final int tamanhoLote;
+
+    /** Lote gravado: quantos foram movidos e o agendamento mais recente entre eles */
+    private record Lote(int quantidade, LocalDateTime ultimaDataHora) { }
+
+    private final AtomicBoolean executando = new AtomicBoolean();
+    private final AtomicLong totalArquivados = new AtomicLong();
+    private volatile LocalDateTime arquivadoAte;
+    private volatile Map<String, Object> ultimaExecucao = Map.of();
+
+    public ArquivamentoAgendamentos(AgendamentoArquivadoRepository arquivoRepository,
+                                    TransactionTemplate transactionTemplate,
+                                    @Value("${marcahora.arquivo.dias:365}") int diasNoQuente,
+                                    @Value("${marcahora.arquivo.lote:1000}") int tamanhoLote) {
+        this.arquivoRepository = arquivoRepository;
+        this.transactionTemplate = transactionTemplate;
+        // Nunca arquiva o dia atual nem o anterior: a agenda e os horários leem só a tabela quente
+        this.diasNoQuente = Math.max(diasNoQuente, 2);
+        this.tamanhoLote = tamanhoLote;
+        this.arquivadoAte = arquivoRepository.buscarUltimaDataHora();
+    }
+
+    /** true se o período que começa em {@code inicio} pode ter agendamentos arquivados */
+    public boolean alcancaArquivo(LocalDateTime inicio) {
+        LocalDateTime limite = arquivadoAte;
+        return limite != null && !inicio.isAfter(limite);
+    }
+
+    // ============================
+    // EXECUÇÃO
+    // ============================
+
+    @Scheduled(cron = "${marcahora.arquivo.cron:0 30 3 * * *}")
+    public void executarAgendado() {
+        arquivar();
+    }
+
+    /** Arquiva tudo antes do corte; retorna o resumo (ou null se já está rodando) */
+    public Map<String, Object> arquivar() {
+        if (!executando.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            LocalDateTime corte = LocalDate.now().minusDays(diasNoQuente).atStartOfDay();
+            long inicio = System.nanoTime();
+            int lotes = 0;
+            long movidos = 0;
+
+            while (true) {
+                Lote lote = transactionTemplate.execute(status -> arquivarLote(corte));
+                if (lote == null) break;
+
+                // Já commitado: as listagens desse período passam a ler o arquivo
+                LocalDateTime limite = arquivadoAte;
+                if (limite == null || lote.ultimaDataHora().isAfter(limite)) {
+                    arquivadoAte = lote.ultimaDataHora();
+                }
+                lotes++;
+                movidos += lote.quantidade();
+                totalArquivados.addAndGet(lote.quantidade());
+                if (lote.quantidade() < tamanhoLote) break;
+            }
+
+            if (movidos > 0) {
+                log.info("Arquivamento: {} agendamentos anteriores a {} em {} lotes", movidos, corte, lotes);
+            }
+
+            Map<String, Object> resumo = new LinkedHashMap<>();
+            resumo.put("corte", corte.toString());
+            resumo.put("arquivados", movidos);
+            resumo.put("lotes", lotes);
+            resumo.put("duracaoMs", (System.nanoTime() - inicio) / 1_000_000);
+            ultimaExecucao = resumo;
+            return resumo;
+        } finally {
+            executando.set(false);
+        }
+    }
+
+    private Lote arquivarLote(LocalDateTime corte) {
+        List<Long> ids = arquivoRepository.listarIdsParaArquivar(corte, tamanhoLote);
+        if (ids.isEmpty()) return null;
+
+        arquivoRepository.copiarAgendamentos(ids);
+        arquivoRepository.copiarRespostas(ids);
+        LocalDateTime ultimaDataHora = arquivoRepository.buscarUltimaDataHora(ids);
+        arquivoRepository.excluirRespostas(ids);
+        arquivoRepository.excluirAgendamentos(ids);
+        return new Lote(ids.size(), ultimaDataHora);
+    }
+
+    // ============================
+    // ESTATÍSTICAS
+    // ============================
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("diasNoQuente", diasNoQuente);
+        stats.put("arquivadoAte", arquivadoAte == null ? null : arquivadoAte.toString());
+        stats.put("arquivadosDesdeInicio", totalArquivados.get());
+        stats.put("ultimaExecucao", ultimaExecucao);
+        return stats;
+    }
+}
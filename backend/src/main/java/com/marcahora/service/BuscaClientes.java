@@ -0,0 +1,355 @@
+package com.marcahora.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.marcahora.dto.ClienteBusca;
+import com.marcahora.model.Cliente;
+import com.marcahora.repository.ClienteRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Busca de clientes por nome, telefone ou e-mail, num índice em memória por
+ * loja.
+ *
+ * O índice de uma loja é montado na primeira busca (uma consulta só com id,
+ * nome, telefone e e-mail) e depois atualizado a cada cliente gravado ou
+ * excluído. Cada termo da busca precisa ser prefixo de alguma palavra do
+ * cliente (nome sem acentos, dígitos do telefone, partes do e-mail); se
+ * vierem menos resultados que o pedido, completa com nomes parecidos
+ * (trigramas), para erros de digitação.
+ *
+ * O cache é limitado pelo total de clientes indexados
+ * (marcahora.busca-clientes.max-clientes); lojas pouco usadas saem primeiro
+ * e são remontadas na próxima busca.
+ */
+@Component
+public class BuscaClientes {
+
+    private static final double SEMELHANCA_MINIMA = 0.4;
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ClienteRepository clienteRepository;
+    private final AsyncCache<Long, Indice> indices;
+
+    private final LongAdder buscas = new LongAdder();
+    private final LongAdder montagens = new LongAdder();
+    private final LongAdder nanosBusca = new LongAdder();
+    private volatile long ultimaMontagemMs;
+
+    public BuscaClientes(ClienteRepository clienteRepository,
+                         @Value("${marcahora.busca-clientes.max-clientes:500000}") long maxClientes,
+                         @Value("${marcahora.busca-clientes.expiracao-minutos:60}") long expiracaoMinutos) {
+        this.clienteRepository = clienteRepository;
+        this.indices = Caffeine.newBuilder()
+                .maximumWeight(maxClientes)
+                .weigher((Long lojaId, Indice indice) -> Math.max(1, indice.tamanho()))
+                .expireAfterAccess(Duration.ofMinutes(expiracaoMinutos))
+                .buildAsync();
+    }
+
+    // ============================
+    // BUSCA
+    // ============================
+
+    public List<ClienteBusca> buscar(Long lojaId, String consulta, int limite) {
+        List<String> termos = palavras(consulta);
+        if (termos.isEmpty()) return List.of();
+
+        // A montagem roda fora do lock do mapa (em outra thread): esperar o
+        // futuro não prende a thread portadora de uma thread virtual
+        Indice indice = indices.get(lojaId, this::montar).join();
+        long inicio = System.nanoTime();
+        List<ClienteBusca> resultado = indice.buscar(termos, limite);
+        nanosBusca.add(System.nanoTime() - inicio);
+        buscas.increment();
+        return resultado;
+    }
+
+    private Indice montar(Long lojaId) {
+        long inicio = System.nanoTime();
+        Indice indice = new Indice();
+        for (Object[] linha : clienteRepository.listarParaBusca(lojaId)) {
+            indice.gravar(new ClienteBusca((Long) linha[0], (String) linha[1], (String) linha[2], (String) linha[3]));
+        }
+        montagens.increment();
+        ultimaMontagemMs = (System.nanoTime() - inicio) / 1_000_000;
+        return indice;
+    }
+
+    // ============================
+    // ATUALIZAÇÃO
+    // ============================
+
+    // A alteração entra encadeada no futuro do índice: se a montagem ainda
+    // está em andamento, é aplicada quando ela terminar, na ordem em que
+    // chegou; loja sem índice carregado é ignorada
+
+    /** Chamar depois do commit que criou ou alterou o cliente */
+    public void clienteGravado(Cliente cliente) {
+        if (cliente.getLoja() == null) return;
+        ClienteBusca dados = new ClienteBusca(cliente.getId(), cliente.getNome(), cliente.getTelefone(), cliente.getEmail());
+        alterar(cliente.getLoja().getId(), indice -> indice.gravar(dados));
+    }
+
+    public void clienteExcluido(Long lojaId, Long clienteId) {
+        alterar(lojaId, indice -> indice.remover(clienteId));
+    }
+
+    private void alterar(Long lojaId, Consumer<Indice> alteracao) {
+        indices.asMap().computeIfPresent(lojaId, (id, futuro) -> futuro.thenApply(indice -> {
+            alteracao.accept(indice);
+            return indice;
+        }));
+    }
+
+    /** Muitas alterações de uma vez (importação): remonta na próxima busca */
+    public void invalidarLoja(Long lojaId) {
+        indices.synchronous().invalidate(lojaId);
+    }
+
+    public Map<String, Object> estatisticas() {
+        long total = buscas.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("lojas", indices.synchronous().estimatedSize());
+        stats.put("clientesIndexados", indices.asMap().values().stream()
+                .filter(f -> f.isDone() && !f.isCompletedExceptionally())
+                .mapToLong(f -> f.join().tamanho())
+                .sum());
+        stats.put("buscas", total);
+        stats.put("montagens", montagens.sum());
+        stats.put("ultimaMontagemMs", ultimaMontagemMs);
+        stats.put("mediaMicros", total == 0 ? 0 : nanosBusca.sum() / total / 1000);
+        return stats;
+    }
+
+    // ============================
+    // NORMALIZAÇÃO
+    // ============================
+
+    /** Palavras em minúsculas, sem acentos, separadas por qualquer coisa que não seja letra ou dígito */
+    static List<String> palavras(String texto) {
+        if (texto == null || texto.isBlank()) return List.of();
+        String semAcentos = ACENTOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        String normalizado = semAcentos.toLowerCase(Locale.ROOT);
+        List<String> palavras = new ArrayList<>();
+        for (String p : SEPARADORES.split(normalizado)) {
+            if (!p.isEmpty()) palavras.add(p);
+        }
+        return palavras;
+    }
+
+    /** Trigramas com espaço nas pontas: "ana" → " an", "ana", "na " */
+    private static List<String> trigramas(String palavra) {
+        String p = " " + palavra + " ";
+        List<String> lista = new ArrayList<>(p.length() - 2);
+        for (int i = 0; i + 3 <= p.length(); i++) {
+            lista.add(p.substring(i, i + 3));
+        }
+        return lista;
+    }
+
+    // ============================
+    // ÍNDICE DE UMA LOJA
+    // ============================
+
+    private static final class Indice {
+
+        private record Entrada(ClienteBusca cliente, String[] palavras, String[] palavrasNome) { }
+
+        private final Map<Long, Entrada> porId = new HashMap<>();
+        // palavra → clientes, em ordem alfabética (prefixo = subMap)
+        private final TreeMap<String, Set<Long>> palavras = new TreeMap<>();
+        // trigrama das palavras do nome → clientes (busca aproximada)
+        private final Map<String, Set<Long>> trigramas = new HashMap<>();
+        // Buscas em paralelo; alterações exclusivas (sem synchronized, que
+        // prende a thread portadora quando a thread é virtual)
+        private final ReadWriteLock trava = new ReentrantReadWriteLock();
+
+        int tamanho() {
+            trava.readLock().lock();
+            try {
+                return porId.size();
+            } finally {
+                trava.readLock().unlock();
+            }
+        }
+
+        void gravar(ClienteBusca cliente) {
+            trava.writeLock().lock();
+            try {
+                retirarCliente(cliente.id());
+                incluir(cliente);
+            } finally {
+                trava.writeLock().unlock();
+            }
+        }
+
+        void remover(Long id) {
+            trava.writeLock().lock();
+            try {
+                retirarCliente(id);
+            } finally {
+                trava.writeLock().unlock();
+            }
+        }
+
+        List<ClienteBusca> buscar(List<String> termos, int limite) {
+            trava.readLock().lock();
+            try {
+                return buscarTravado(termos, limite);
+            } finally {
+                trava.readLock().unlock();
+            }
+        }
+
+        private void incluir(ClienteBusca cliente) {
+            String[] nome = palavras(cliente.nome()).toArray(String[]::new);
+            Set<String> todas = new LinkedHashSet<>(Arrays.asList(nome));
+            String telefone = Cliente.normalizarTelefone(cliente.telefone());
+            if (telefone != null) {
+                todas.add(telefone);
+                // Sem o DDD, para achar pelo número como a pessoa fala
+                if (telefone.length() > 8) todas.add(telefone.substring(2));
+            }
+            todas.addAll(palavras(cliente.email()));
+
+            Entrada entrada = new Entrada(cliente, todas.toArray(String[]::new), nome);
+            porId.put(cliente.id(), entrada);
+            for (String p : entrada.palavras()) {
+                palavras.computeIfAbsent(p, k -> new HashSet<>()).add(cliente.id());
+            }
+            for (String p : nome) {
+                for (String t : trigramas(p)) {
+                    trigramas.computeIfAbsent(t, k -> new HashSet<>()).add(cliente.id());
+                }
+            }
+        }
+
+        private void retirarCliente(Long id) {
+            Entrada entrada = porId.remove(id);
+            if (entrada == null) return;
+            for (String p : entrada.palavras()) {
+                retirar(palavras, p, id);
+            }
+            for (String p : entrada.palavrasNome()) {
+                for (String t : trigramas(p)) {
+                    retirar(trigramas, t, id);
+                }
+            }
+        }
+
+        private static void retirar(Map<String, Set<Long>> mapa, String chave, Long id) {
+            Set<Long> ids = mapa.get(chave);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                mapa.remove(chave);
+            }
+        }
+
+        private List<ClienteBusca> buscarTravado(List<String> termos, int limite) {
+            LinkedHashSet<Long> achados = new LinkedHashSet<>();
+
+            // 1) Prefixo: percorre as palavras que começam com o termo mais
+            //    seletivo em ordem alfabética (palavra exata primeiro) e confere
+            //    os demais termos no próprio cliente
+            String guia = maisSeletivo(termos);
+            for (Set<Long> ids : palavras.subMap(guia, true, guia + Character.MAX_VALUE, false).values()) {
+                for (Long id : ids) {
+                    if (achados.size() >= limite) break;
+                    if (!achados.contains(id) && temTodos(porId.get(id), termos)) {
+                        achados.add(id);
+                    }
+                }
+                if (achados.size() >= limite) break;
+            }
+
+            // 2) Aproximada: nomes com trigramas em comum com cada termo de letras
+            if (achados.size() < limite) {
+                aproximados(termos, limite - achados.size(), achados);
+            }
+
+            List<ClienteBusca> resultado = new ArrayList<>(achados.size());
+            for (Long id : achados) {
+                resultado.add(porId.get(id).cliente());
+            }
+            return resultado;
+        }
+
+        /** Termo com menos clientes no intervalo do prefixo (a contagem para ao passar do menor) */
+        private String maisSeletivo(List<String> termos) {
+            if (termos.size() == 1) return termos.get(0);
+            String guia = termos.get(0);
+            long menor = Long.MAX_VALUE;
+            for (String termo : termos) {
+                long n = 0;
+                for (Set<Long> ids : palavras.subMap(termo, true, termo + Character.MAX_VALUE, false).values()) {
+                    n += ids.size();
+                    if (n >= menor) break;
+                }
+                if (n < menor) {
+                    menor = n;
+                    guia = termo;
+                }
+            }
+            return guia;
+        }
+
+        private static boolean temTodos(Entrada entrada, List<String> termos) {
+            for (String termo : termos) {
+                boolean achou = false;
+                for (String p : entrada.palavras()) {
+                    if (p.startsWith(termo)) {
+                        achou = true;
+                        break;
+                    }
+                }
+                if (!achou) return false;
+            }
+            return true;
+        }
+
+        /** Soma, por cliente, a melhor semelhança de cada termo; todos os termos precisam passar do mínimo */
+        private void aproximados(List<String> termos, int quantos, Set<Long> jaAchados) {
+            Map<Long, Double> pontos = null;
+            for (String termo : termos) {
+                if (termo.length() < 3 || !Character.isLetter(termo.charAt(0))) return;
+
+                List<String> tris = trigramas(termo);
+                Map<Long, Integer> comuns = new HashMap<>();
+                for (String t : tris) {
+                    Set<Long> ids = trigramas.get(t);
+                    if (ids == null) continue;
+                    for (Long id : ids) {
+                        comuns.merge(id, 1, Integer::sum);
+                    }
+                }
+
+                Map<Long, Double> doTermo = new HashMap<>();
+                for (Map.Entry<Long, Integer> e : comuns.entrySet()) {
+                    double semelhanca = (double) e.getValue() / tris.size();
+                    if (semelhanca >= SEMELHANCA_MINIMA && (pontos == null || pontos.containsKey(e.getKey()))) {
+                        doTermo.put(e.getKey(), semelhanca + (pontos == null ? 0 : pontos.get(e.getKey())));
+                    }
+                }
+                pontos = doTermo;
+                if (pontos.isEmpty()) return;
+            }
+
+            pontos.keySet().removeAll(jaAchados);
+            pontos.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Double>comparingByValue().reversed())
+                    .limit(quantos)
+                    .forEach(e -> jaAchados.add(e.getKey()));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.marcahora.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Cache limitado dos horários livres calculados pelo {@link HorarioService}.
+ *
+ * Cada entrada corresponde a um dia de uma loja e guarda as variações por
+ * duração de slot e profissional. Os valores são os minutos de início livres
+ * antes do filtro de "agora", que é aplicado na leitura.
+ *
+ * A entrada do dia é obtida antes da consulta ao banco: se ela for invalidada
+ * durante o cálculo, o resultado é gravado numa entrada já descartada e nunca
+ * é servido.
+ */
+@Component
+public class CacheHorarios {
+
+    private record ChaveDia(Long lojaId, LocalDate data) { }
+
+    private record Variante(int duracaoSlot, Long profissionalId) { }
+
+    private final Cache<ChaveDia, Map<Variante, int[]>> dias;
+
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder remocoes = new LongAdder();
+    private final LongAdder invalidacoes = new LongAdder();
+
+    public CacheHorarios(@Value("${marcahora.cache.horarios.max-dias:10000}") long maxDias,
+                         @Value("${marcahora.cache.horarios.expiracao-minutos:30}") long expiracaoMinutos) {
+        this.dias = Caffeine.newBuilder()
+                .maximumSize(maxDias)
+                .expireAfterWrite(Duration.ofMinutes(expiracaoMinutos))
+                .removalListener((ChaveDia chave, Map<Variante, int[]> valor, RemovalCause causa) -> {
+                    if (causa.wasEvicted()) {
+                        remocoes.increment();
+                    }
+                })
+                .build();
+    }
+
+    // ============================
+    // LEITURA
+    // ============================
+
+    /** Retorna os horários do dia, calculando e guardando em caso de falha */
+    int[] obter(Long lojaId, LocalDate data, int duracaoSlot, Long profissionalId,
+                Supplier<int[]> calcular) {
+        Map<Variante, int[]> entrada = entradaDoDia(lojaId, data);
+        Variante variante = new Variante(duracaoSlot, profissionalId);
+
+        int[] inicios = entrada.get(variante);
+        if (inicios != null) {
+            acertos.increment();
+            return inicios;
+        }
+
+        falhas.increment();
+        inicios = calcular.get();
+        entrada.putIfAbsent(variante, inicios);
+        return inicios;
+    }
+
+    /**
+     * Versão para períodos: os dias ausentes do cache são calculados
+     * juntos, numa única chamada a {@code calcularFaltantes}.
+     */
+    Map<LocalDate, int[]> obterPeriodo(Long lojaId, List<LocalDate> datas, int duracaoSlot, Long profissionalId,
+                                       Function<List<LocalDate>, Map<LocalDate, int[]>> calcularFaltantes) {
+        Variante variante = new Variante(duracaoSlot, profissionalId);
+
+        Map<LocalDate, int[]> resultado = new LinkedHashMap<>();
+        Map<LocalDate, Map<Variante, int[]>> entradasFaltantes = new LinkedHashMap<>();
+
+        for (LocalDate data : datas) {
+            Map<Variante, int[]> entrada = entradaDoDia(lojaId, data);
+            int[] inicios = entrada.get(variante);
+            if (inicios != null) {
+                acertos.increment();
+            } else {
+                falhas.increment();
+                entradasFaltantes.put(data, entrada);
+            }
+            resultado.put(data, inicios);
+        }
+
+        if (!entradasFaltantes.isEmpty()) {
+            Map<LocalDate, int[]> calculados = calcularFaltantes.apply(new ArrayList<>(entradasFaltantes.keySet()));
+            entradasFaltantes.forEach((data, entrada) -> {
+                int[] inicios = calculados.get(data);
+                entrada.putIfAbsent(variante, inicios);
+                resultado.put(data, inicios);
+            });
+        }
+        return resultado;
+    }
+
+    private Map<Variante, int[]> entradaDoDia(Long lojaId, LocalDate data) {
+        return dias.get(new ChaveDia(lojaId, data), k -> new ConcurrentHashMap<>());
+    }
+
+    // ============================
+    // INVALIDAÇÃO
+    // ============================
+
+    /** Descarta todas as variações de um dia da loja */
+    void invalidarDia(Long lojaId, LocalDate data) {
+        invalidacoes.increment();
+        dias.invalidate(new ChaveDia(lojaId, data));
+    }
+
+    /** Descarta todos os dias da loja (ex.: mudança de horário de funcionamento) */
+    void invalidarLoja(Long lojaId) {
+        invalidacoes.increment();
+        dias.asMap().keySet().removeIf(chave -> chave.lojaId().equals(lojaId));
+    }
+
+    // ============================
+    // ESTATÍSTICAS
+    // ============================
+    public Map<String, Object> estatisticas() {
+        long totalAcertos = acertos.sum();
+        long totalFalhas = falhas.sum();
+        long total = totalAcertos + totalFalhas;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("acertos", totalAcertos);
+        stats.put("falhas", totalFalhas);
+        stats.put("taxaAcerto", total == 0 ? 0.0 : (double) totalAcertos / total);
+        stats.put("remocoes", remocoes.sum());
+        stats.put("invalidacoes", invalidacoes.sum());
+        stats.put("dias", dias.estimatedSize());
+        return stats;
+    }
+}
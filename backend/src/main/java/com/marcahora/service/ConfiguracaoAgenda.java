@@ -0,0 +1,86 @@
+package com.marcahora.service;
+
+import com.marcahora.model.Loja;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+/**
+ * Configuração de agenda de uma loja já interpretada, pronta para o cálculo
+ * de horários: dias como máscara de bits, horários em minutos do dia e
+ * intervalo/buffer como primitivos.
+ *
+ * Imutável: quando a loja muda, uma nova instância substitui a anterior.
+ */
+public record ConfiguracaoAgenda(
+        boolean ativa,
+        int diasFuncionamento,   // bit n ligado = DayOfWeek.of(n) aberto
+        int abertura,            // minuto do dia
+        int fechamento,          // minuto do dia
+        int intervalo,
+        int buffer,
+        boolean usaProfissionais) {
+
+    private static final int TODOS_OS_DIAS = 0b1111_1110;
+
+    public boolean abreEm(DayOfWeek dia) {
+        return (diasFuncionamento & (1 << dia.getValue())) != 0;
+    }
+
+    public static ConfiguracaoAgenda de(Loja loja) {
+        int abertura = minutoDoDia(parseHora(loja.getHorarioAbertura(), LocalTime.of(9, 0)));
+        int fechamento = minutoDoDia(parseHora(loja.getHorarioFechamento(), LocalTime.of(18, 0)));
+
+        if (fechamento <= abertura) {
+            fechamento = Math.min(abertura + 60, OcupacaoDia.MINUTOS_DIA);
+        }
+
+        int intervalo = loja.getIntervaloAtendimento() != null && loja.getIntervaloAtendimento() > 0
+                ? loja.getIntervaloAtendimento() : 30;
+        int buffer = loja.getTempoBufferMinutos() != null && loja.getTempoBufferMinutos() > 0
+                ? loja.getTempoBufferMinutos() : 0;
+
+        return new ConfiguracaoAgenda(
+                !Boolean.FALSE.equals(loja.getAtiva()),
+                parseDiasFuncionamento(loja.getDiasFuncionamento()),
+                abertura,
+                fechamento,
+                intervalo,
+                buffer,
+                Boolean.TRUE.equals(loja.getUsaProfissionais()));
+    }
+
+    // =====================================================
+    // MÉTODOS AUXILIARES
+    // =====================================================
+
+    static int minutoDoDia(LocalTime hora) {
+        return hora.getHour() * 60 + hora.getMinute();
+    }
+
+    /** Converte "09:00" → LocalTime */
+    private static LocalTime parseHora(String valor, LocalTime padrao) {
+        if (valor == null || valor.isBlank()) return padrao;
+
+        try {
+            return LocalTime.parse(valor);
+        } catch (Exception e) {
+            return padrao;
+        }
+    }
+
+    /** Converte "1,2,3,4" → máscara de bits (vazio = todos os dias) */
+    private static int parseDiasFuncionamento(String dias) {
+        if (dias == null || dias.isBlank()) return TODOS_OS_DIAS;
+
+        try {
+            int mascara = 0;
+            for (String dia : dias.split(",")) {
+                mascara |= 1 << DayOfWeek.of(Integer.parseInt(dia.trim())).getValue();
+            }
+            return mascara;
+        } catch (Exception e) {
+            return TODOS_OS_DIAS;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.marcahora.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Tolerância ao atraso da réplica de leitura no cálculo de horários.
+ *
+ * Depois de uma escrita na agenda de uma loja, por marcahora.replica.
+ * atraso-tolerado-ms as leituras de agendamentos dessa loja vão ao
+ * primário (numa transação própria), mesmo dentro de uma transação
+ * readOnly. Sem isso, uma consulta logo após um agendamento poderia ler a
+ * réplica ainda sem ele e guardar no cache de horários um horário livre
+ * que já foi ocupado; a revalidação da reserva e do agendamento usa esse
+ * cache. O valor deve ficar acima do atraso real da réplica.
+ *
+ * Sem réplica configurada, {@link #ler} só executa a leitura.
+ */
+@Component
+public class ConsistenciaReplica {
+
+    private final boolean replicaAtiva;
+    private final Cache<Long, Boolean> escritasRecentes;
+    private final TransactionTemplate noPrimario;
+
+    public ConsistenciaReplica(PlatformTransactionManager transactionManager,
+                               @Value("${marcahora.replica.url:}") String urlReplica,
+                               @Value("${marcahora.replica.atraso-tolerado-ms:2000}") long atrasoToleradoMs) {
+        this.replicaAtiva = !urlReplica.isBlank();
+        this.escritasRecentes = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(atrasoToleradoMs))
+                .build();
+        this.noPrimario = new TransactionTemplate(transactionManager);
+        this.noPrimario.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /** Chamado antes de descartar horários em cache por causa de uma escrita */
+    public void registrarEscrita(Long lojaId) {
+        if (replicaAtiva) {
+            escritasRecentes.put(lojaId, Boolean.TRUE);
+        }
+    }
+
+    /** Executa a leitura no primário se a loja teve escrita dentro da tolerância */
+    public <T> T ler(Long lojaId, Supplier<T> leitura) {
+        if (!replicaAtiva || escritasRecentes.getIfPresent(lojaId) == null) {
+            return leitura.get();
+        }
+        return noPrimario.execute(status -> leitura.get());
+    }
+
+    public Map<String, Object> estatisticas() {
+        return Map.of(
+                "replicaAtiva", replicaAtiva,
+                "lojasLendoDoPrimario", escritasRecentes.estimatedSize());
+    }
+}
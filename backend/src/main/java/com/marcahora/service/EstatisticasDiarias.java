@@ -0,0 +1,192 @@
+package com.marcahora.service;
+
+import com.marcahora.model.Agendamento;
+import com.marcahora.repository.EstatisticaDiariaRepository;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Totais diários de agendamentos (tabela estatistica_diaria).
+ *
+ * Cada criação e mudança de status soma a diferença na linha de
+ * (loja, dia, profissional, serviço) com um MERGE, na mesma transação que
+ * grava o agendamento: a linha é criada ali mesmo se ainda não existe. Se
+ * outra transação criou a mesma chave ao mesmo tempo, o MERGE esbarra na
+ * chave única e é repetido, agora somando na linha dela.
+ *
+ * O faturamento usa o preço gravado no agendamento, o mesmo usado por
+ * {@link #reconstruir}: reajustar o serviço depois não muda os totais.
+ */
+@Service
+public class EstatisticasDiarias {
+
+    private static final Long SEM_ID = 0L;
+
+    // Soma as diferenças na linha da chave, criando a linha se ainda não existe
+    private static final String SOMAR =
+            "merge into estatistica_diaria e using (values (cast(? as bigint), cast(? as date), "
+            + "cast(? as bigint), cast(? as bigint), cast(? as integer), cast(? as integer), "
+            + "cast(? as integer), cast(? as integer), cast(? as integer), cast(? as numeric(38,2)))) "
+            + "v (loja_id, data, profissional_id, servico_id, quantidade, agendados, confirmados, "
+            + "concluidos, cancelados, faturamento) "
+            + "on e.loja_id = v.loja_id and e.data = v.data "
+            + "and e.profissional_id = v.profissional_id and e.servico_id = v.servico_id "
+            + "when matched then update set quantidade = e.quantidade + v.quantidade, "
+            + "agendados = e.agendados + v.agendados, confirmados = e.confirmados + v.confirmados, "
+            + "concluidos = e.concluidos + v.concluidos, cancelados = e.cancelados + v.cancelados, "
+            + "faturamento = e.faturamento + v.faturamento "
+            + "when not matched then insert (loja_id, data, profissional_id, servico_id, quantidade, "
+            + "agendados, confirmados, concluidos, cancelados, faturamento) "
+            + "values (v.loja_id, v.data, v.profissional_id, v.servico_id, v.quantidade, "
+            + "v.agendados, v.confirmados, v.concluidos, v.cancelados, v.faturamento)";
+
+    private final EstatisticaDiariaRepository estatisticaDiariaRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public EstatisticasDiarias(EstatisticaDiariaRepository estatisticaDiariaRepository,
+                               JdbcTemplate jdbcTemplate) {
+        this.estatisticaDiariaRepository = estatisticaDiariaRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Quanto um agendamento soma em cada contador, conforme o status */
+    private record Contagem(int quantidade, int agendados, int confirmados, int concluidos,
+                            int cancelados, BigDecimal faturamento) {
+
+        static Contagem de(Agendamento ag, String status) {
+            String s = status == null ? "" : status.toLowerCase();
+            BigDecimal preco = ag.getPreco() != null ? ag.getPreco() : BigDecimal.ZERO;
+            return switch (s) {
+                case "confirmado" -> new Contagem(1, 0, 1, 0, 0, preco);
+                case "concluido" -> new Contagem(1, 0, 0, 1, 0, preco);
+                case "cancelado" -> new Contagem(1, 0, 0, 0, 1, BigDecimal.ZERO);
+                default -> new Contagem(1, 1, 0, 0, 0, preco);
+            };
+        }
+
+        Contagem menos(Contagem outra) {
+            return new Contagem(quantidade - outra.quantidade, agendados - outra.agendados,
+                    confirmados - outra.confirmados, concluidos - outra.concluidos,
+                    cancelados - outra.cancelados, faturamento.subtract(outra.faturamento));
+        }
+
+        boolean vazia() {
+            return quantidade == 0 && agendados == 0 && confirmados == 0 && concluidos == 0
+                    && cancelados == 0 && faturamento.signum() == 0;
+        }
+    }
+
+    // ============================
+    // ATUALIZAÇÃO INCREMENTAL
+    // ============================
+
+    /** Chamar na transação que grava o agendamento novo */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void agendamentoCriado(Agendamento ag) {
+        somar(ag, Contagem.de(ag, ag.getStatus()));
+    }
+
+    /** Chamar na transação que grava a mudança de status */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void statusAlterado(Agendamento ag, String statusAnterior) {
+        Contagem diferenca = Contagem.de(ag, ag.getStatus()).menos(Contagem.de(ag, statusAnterior));
+        if (!diferenca.vazia()) {
+            somar(ag, diferenca);
+        }
+    }
+
+    private void somar(Agendamento ag, Contagem c) {
+        if (ag.getLoja() == null || ag.getDataHora() == null) return;
+
+        Long lojaId = ag.getLoja().getId();
+        LocalDate data = ag.getDataHora().toLocalDate();
+        Long profissionalId = ag.getProfissional() != null ? ag.getProfissional().getId() : SEM_ID;
+        Long servicoId = ag.getServico() != null ? ag.getServico().getId() : SEM_ID;
+
+        Object[] valores = {lojaId, data, profissionalId, servicoId, c.quantidade(), c.agendados(),
+                c.confirmados(), c.concluidos(), c.cancelados(), c.faturamento()};
+        try {
+            jdbcTemplate.update(SOMAR, valores);
+        } catch (DuplicateKeyException e) {
+            // Outra transação criou a linha ao mesmo tempo; o banco desfaz só o
+            // comando, e a repetição cai no "when matched"
+            jdbcTemplate.update(SOMAR, valores);
+        }
+    }
+
+    // ============================
+    // RECONSTRUÇÃO
+    // ============================
+
+    /** Refaz os totais da loja a partir dos agendamentos; retorna quantas linhas gerou */
+    @Transactional
+    public int reconstruir(Long lojaId) {
+        estatisticaDiariaRepository.excluirPorLoja(lojaId);
+        return estatisticaDiariaRepository.carregarPorLoja(lojaId);
+    }
+
+    // ============================
+    // RELATÓRIO
+    // ============================
+
+    /** Totais do período agrupados por dia, profissional ou serviço (lidos só da tabela de totais) */
+    @Transactional(readOnly = true)
+    public Map<String, Object> relatorio(Long lojaId, LocalDate inicio, LocalDate fim, String agrupar) {
+        List<Object[]> linhas = switch (agrupar) {
+            case "profissional" -> estatisticaDiariaRepository.somarPorProfissional(lojaId, inicio, fim);
+            case "servico" -> estatisticaDiariaRepository.somarPorServico(lojaId, inicio, fim);
+            default -> estatisticaDiariaRepository.somarPorDia(lojaId, inicio, fim);
+        };
+
+        long[] totais = new long[5];
+        BigDecimal faturamento = BigDecimal.ZERO;
+        List<Map<String, Object>> grupos = new ArrayList<>(linhas.size());
+        for (Object[] linha : linhas) {
+            // Id 0 = agendamentos sem profissional / sem serviço
+            Object grupo = linha[0] instanceof Long id && id.equals(SEM_ID) ? null : linha[0];
+            grupos.add(contadores(grupo, linha));
+            for (int i = 0; i < totais.length; i++) {
+                totais[i] += ((Number) linha[i + 1]).longValue();
+            }
+            faturamento = faturamento.add((BigDecimal) linha[6]);
+        }
+
+        Map<String, Object> total = new LinkedHashMap<>();
+        total.put("quantidade", totais[0]);
+        total.put("agendados", totais[1]);
+        total.put("confirmados", totais[2]);
+        total.put("concluidos", totais[3]);
+        total.put("cancelados", totais[4]);
+        total.put("faturamento", faturamento);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("inicio", inicio.toString());
+        body.put("fim", fim.toString());
+        body.put("agrupar", agrupar);
+        body.put("total", total);
+        body.put("grupos", grupos);
+        return body;
+    }
+
+    private static Map<String, Object> contadores(Object grupo, Object[] linha) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("grupo", grupo);
+        m.put("quantidade", linha[1]);
+        m.put("agendados", linha[2]);
+        m.put("confirmados", linha[3]);
+        m.put("concluidos", linha[4]);
+        m.put("cancelados", linha[5]);
+        m.put("faturamento", linha[6]);
+        return m;
+    }
+}
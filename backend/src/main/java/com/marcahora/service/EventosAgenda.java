@@ -0,0 +1,248 @@
+package com.marcahora.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Assinaturas SSE de disponibilidade, por loja e dia.
+ *
+ * Cada conexão é um {@link SseEmitter} em modo assíncrono do servlet: depois
+ * do handshake a thread da requisição volta para o pool, então conexões
+ * ociosas não prendem threads. O payload é serializado uma vez por evento e
+ * entra na fila de cada conexão; um pool pequeno de envio esvazia as filas,
+ * uma tarefa por conexão de cada vez (a ordem dos eventos se mantém). Quem
+ * grava o agendamento nunca espera pelos navegadores, e um navegador lento só
+ * prende uma thread de envio: se a fila dele enche, a conexão é descartada e
+ * o cliente reconecta (o EventSource faz isso sozinho) e relê os horários.
+ */
+@Component
+public class EventosAgenda {
+
+    private record ChaveDia(Long lojaId, LocalDate data) { }
+
+    /** Conexão com os eventos ainda não enviados a ela */
+    private static final class Assinatura {
+        final ChaveDia chave;
+        final SseEmitter emitter;
+        final Queue<Set<ResponseBodyEmitter.DataWithMediaType>> fila = new ConcurrentLinkedQueue<>();
+        final AtomicInteger pendentes = new AtomicInteger();
+        /** true enquanto há uma tarefa de envio agendada ou rodando para esta conexão */
+        final AtomicBoolean enviando = new AtomicBoolean();
+        volatile boolean descartada;
+
+        Assinatura(ChaveDia chave, SseEmitter emitter) {
+            this.chave = chave;
+            this.emitter = emitter;
+        }
+    }
+
+    private final Map<ChaveDia, Set<Assinatura>> assinantes = new ConcurrentHashMap<>();
+    private final AtomicInteger conexoes = new AtomicInteger();
+    private final AtomicLong descartadas = new AtomicLong();
+
+    private final ObjectMapper objectMapper;
+    private final long timeoutMs;
+    private final int maxConexoes;
+    private final int tamanhoFila;
+
+    private final ExecutorService envio;
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "eventos-agenda-heartbeat");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public EventosAgenda(ObjectMapper objectMapper,
+                         @Value("${marcahora.sse.timeout-minutos:30}") long timeoutMinutos,
+                         @Value("${marcahora.sse.max-conexoes:10000}") int maxConexoes,
+                         @Value("${marcahora.sse.heartbeat-segundos:25}") long heartbeatSegundos,
+                         @Value("${marcahora.sse.threads-envio:4}") int threadsEnvio,
+                         @Value("${marcahora.sse.fila-por-conexao:64}") int tamanhoFila) {
+        this.objectMapper = objectMapper;
+        this.timeoutMs = Duration.ofMinutes(timeoutMinutos).toMillis();
+        this.maxConexoes = maxConexoes;
+        this.tamanhoFila = Math.max(tamanhoFila, 1);
+        AtomicInteger numero = new AtomicInteger();
+        this.envio = Executors.newFixedThreadPool(Math.max(threadsEnvio, 1), r -> {
+            Thread t = new Thread(r, "eventos-agenda-" + numero.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        heartbeat.scheduleAtFixedRate(this::enviarHeartbeat, heartbeatSegundos, heartbeatSegundos, TimeUnit.SECONDS);
+    }
+
+    // ============================
+    // ASSINATURA
+    // ============================
+
+    /** Abre uma conexão para o dia da loja, ou null se o limite de conexões foi atingido */
+    public SseEmitter assinar(Long lojaId, LocalDate data) {
+        if (conexoes.incrementAndGet() > maxConexoes) {
+            conexoes.decrementAndGet();
+            return null;
+        }
+
+        ChaveDia chave = new ChaveDia(lojaId, data);
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Assinatura assinatura = new Assinatura(chave, emitter);
+
+        Runnable remover = () -> remover(assinatura);
+        emitter.onCompletion(remover);
+        emitter.onTimeout(remover);
+        emitter.onError(e -> remover.run());
+
+        assinantes.computeIfAbsent(chave, k -> ConcurrentHashMap.newKeySet()).add(assinatura);
+        return emitter;
+    }
+
+    private void remover(Assinatura assinatura) {
+        assinantes.computeIfPresent(assinatura.chave, (k, assinaturas) -> {
+            if (assinaturas.remove(assinatura)) {
+                conexoes.decrementAndGet();
+            }
+            return assinaturas.isEmpty() ? null : assinaturas;
+        });
+    }
+
+    // ============================
+    // PUBLICAÇÃO
+    // ============================
+
+    /**
+     * Envia o intervalo [inicio, fim) ocupado ou liberado (minutos do dia) a quem
+     * acompanha o dia da loja, sem bloquear quem chamou.
+     */
+    void publicar(Long lojaId, LocalDate data, String tipo, int inicio, int fim, Long profissionalId) {
+        ChaveDia chave = new ChaveDia(lojaId, data);
+        if (!assinantes.containsKey(chave)) {
+            return;
+        }
+
+        Map<String, Object> dados = new LinkedHashMap<>();
+        dados.put("data", data.toString());
+        dados.put("inicio", rotulo(inicio));
+        dados.put("fim", rotulo(fim));
+        dados.put("profissionalId", profissionalId);
+
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(dados);
+        } catch (JsonProcessingException e) {
+            return;
+        }
+
+        Set<ResponseBodyEmitter.DataWithMediaType> evento = SseEmitter.event()
+                .name(tipo)
+                .data(json, MediaType.APPLICATION_JSON)
+                .build();
+        Set<Assinatura> assinaturas = assinantes.get(chave);
+        if (assinaturas == null) return;
+        for (Assinatura assinatura : assinaturas) {
+            enfileirar(assinatura, evento);
+        }
+    }
+
+    private static String rotulo(int minuto) {
+        int m = Math.min(minuto, OcupacaoDia.MINUTOS_DIA - 1);
+        return LocalTime.of(m / 60, m % 60).toString();
+    }
+
+    /** Comentário periódico: mantém proxies abertos e descobre conexões mortas */
+    private void enviarHeartbeat() {
+        Set<ResponseBodyEmitter.DataWithMediaType> evento = SseEmitter.event().comment("ping").build();
+        assinantes.values().forEach(assinaturas -> {
+            for (Assinatura assinatura : assinaturas) {
+                enfileirar(assinatura, evento);
+            }
+        });
+    }
+
+    // ============================
+    // ENVIO
+    // ============================
+
+    /**
+     * Põe o evento na fila da conexão e agenda o envio se nenhum está em
+     * andamento. Fila cheia: a conexão sai dos assinantes e é encerrada pela
+     * tarefa de envio (complete() aqui esperaria o send() travado).
+     */
+    private void enfileirar(Assinatura assinatura, Set<ResponseBodyEmitter.DataWithMediaType> evento) {
+        if (assinatura.descartada) return;
+
+        if (assinatura.pendentes.incrementAndGet() > tamanhoFila) {
+            assinatura.pendentes.decrementAndGet();
+            assinatura.descartada = true;
+            descartadas.incrementAndGet();
+            remover(assinatura);
+        } else {
+            assinatura.fila.add(evento);
+        }
+        if (assinatura.enviando.compareAndSet(false, true)) {
+            envio.execute(() -> esvaziar(assinatura));
+        }
+    }
+
+    /** Envia a fila da conexão em ordem; só uma tarefa por conexão roda de cada vez */
+    private void esvaziar(Assinatura assinatura) {
+        do {
+            Set<ResponseBodyEmitter.DataWithMediaType> evento;
+            while (!assinatura.descartada && (evento = assinatura.fila.poll()) != null) {
+                assinatura.pendentes.decrementAndGet();
+                enviar(assinatura, evento);
+            }
+            if (assinatura.descartada) {
+                // Mantém enviando=true: nenhuma outra tarefa é agendada para ela
+                assinatura.fila.clear();
+                assinatura.emitter.complete();
+                return;
+            }
+            assinatura.enviando.set(false);
+        } while (!assinatura.fila.isEmpty() && assinatura.enviando.compareAndSet(false, true));
+    }
+
+    private void enviar(Assinatura assinatura, Set<ResponseBodyEmitter.DataWithMediaType> evento) {
+        try {
+            assinatura.emitter.send(evento);
+        } catch (IOException | IllegalStateException e) {
+            assinatura.descartada = true;
+            remover(assinatura);
+            assinatura.emitter.completeWithError(e);
+        }
+    }
+
+    // ============================
+    // ESTATÍSTICAS
+    // ============================
+    public Map<String, Object> estatisticas() {
+        return Map.of(
+                "conexoes", conexoes.get(),
+                "dias", assinantes.size(),
+                "descartadasPorLentidao", descartadas.get());
+    }
+
+    @PreDestroy
+    void encerrar() {
+        heartbeat.shutdownNow();
+        envio.shutdownNow();
+        assinantes.values().forEach(assinaturas -> assinaturas.forEach(a -> a.emitter.complete()));
+    }
+}
@@ -0,0 +1,134 @@
+package com.marcahora.service;
+
+import com.marcahora.dto.AgendamentoResumo;
+import com.marcahora.repository.AgendamentoArquivadoRepository;
+import com.marcahora.repository.AgendamentoRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.stream.Stream;
+
+/**
+ * Exportação de agendamentos em CSV, escrita direto na resposta.
+ *
+ * As linhas vêm de uma consulta em stream (projeção, com fetch size), dentro
+ * de uma transação só leitura aberta enquanto o arquivo é escrito. Nenhuma
+ * lista é montada e as projeções não entram no contexto de persistência,
+ * então a memória usada não depende do tamanho do período. Se o período
+ * chega nos agendamentos arquivados, eles saem primeiro (são os mais antigos).
+ *
+ * O separador é ";" e o arquivo começa com BOM, para abrir direto no Excel
+ * em português.
+ */
+@Service
+public class ExportacaoAgendamentos {
+
+    private static final char SEPARADOR = ';';
+    private static final DateTimeFormatter DATA = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter HORA = DateTimeFormatter.ofPattern("HH:mm");
+
+    private static final String CABECALHO = String.join(String.valueOf(SEPARADOR),
+            "id", "data", "hora", "status", "cliente", "telefone",
+            "servico", "duracaoMinutos", "profissional", "observacoes");
+
+    private final AgendamentoRepository agendamentoRepository;
+    private final AgendamentoArquivadoRepository arquivoRepository;
+    private final ArquivamentoAgendamentos arquivamentoAgendamentos;
+    private final TransactionTemplate leitura;
+
+    public ExportacaoAgendamentos(AgendamentoRepository agendamentoRepository,
+                                  AgendamentoArquivadoRepository arquivoRepository,
+                                  ArquivamentoAgendamentos arquivamentoAgendamentos,
+                                  PlatformTransactionManager transactionManager) {
+        this.agendamentoRepository = agendamentoRepository;
+        this.arquivoRepository = arquivoRepository;
+        this.arquivamentoAgendamentos = arquivamentoAgendamentos;
+        this.leitura = new TransactionTemplate(transactionManager);
+        this.leitura.setReadOnly(true);
+    }
+
+    /** Escreve o CSV do período [inicio, fim]; não fecha a saída */
+    public void exportarCsv(Long lojaId, LocalDateTime inicio, LocalDateTime fim, OutputStream saida) throws IOException {
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), 64 * 1024);
+        escritor.write('\uFEFF');
+        escritor.write(CABECALHO);
+        escritor.write("\r\n");
+
+        try {
+            leitura.executeWithoutResult(status -> {
+                if (arquivamentoAgendamentos.alcancaArquivo(inicio)) {
+                    try (Stream<AgendamentoResumo> linhas =
+                                 arquivoRepository.streamResumoPorPeriodo(lojaId, inicio, fim)) {
+                        linhas.forEach(ag -> escreverLinha(escritor, ag));
+                    }
+                }
+                try (Stream<AgendamentoResumo> linhas =
+                             agendamentoRepository.streamResumoPorPeriodo(lojaId, inicio, fim)) {
+                    linhas.forEach(ag -> escreverLinha(escritor, ag));
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Cliente desconectou no meio do download
+            throw e.getCause();
+        }
+
+        escritor.flush();
+    }
+
+    private static void escreverLinha(Writer escritor, AgendamentoResumo ag) {
+        try {
+            escritor.write(String.valueOf(ag.id()));
+            escritor.write(SEPARADOR);
+            escritor.write(ag.dataHora().format(DATA));
+            escritor.write(SEPARADOR);
+            escritor.write(ag.dataHora().format(HORA));
+            escritor.write(SEPARADOR);
+            escrever(escritor, ag.status());
+            escritor.write(SEPARADOR);
+            escrever(escritor, ag.clienteNome());
+            escritor.write(SEPARADOR);
+            escrever(escritor, ag.clienteTelefone());
+            escritor.write(SEPARADOR);
+            escrever(escritor, ag.servicoNome());
+            escritor.write(SEPARADOR);
+            if (ag.servicoDuracaoMinutos() != null) {
+                escritor.write(String.valueOf(ag.servicoDuracaoMinutos()));
+            }
+            escritor.write(SEPARADOR);
+            escrever(escritor, ag.profissionalNome());
+            escritor.write(SEPARADOR);
+            escrever(escritor, ag.observacoes());
+            escritor.write("\r\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Campo de texto, entre aspas só quando precisa (separador, aspas ou quebra de linha) */
+    private static void escrever(Writer escritor, String valor) throws IOException {
+        if (valor == null || valor.isEmpty()) return;
+
+        boolean aspas = false;
+        for (int i = 0; i < valor.length() && !aspas; i++) {
+            char c = valor.charAt(i);
+            aspas = c == SEPARADOR || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!aspas) {
+            escritor.write(valor);
+            return;
+        }
+        escritor.write('"');
+        escritor.write(valor.replace("\"", "\"\""));
+        escritor.write('"');
+    }
+}
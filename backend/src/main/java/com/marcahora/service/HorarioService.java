@@ -9,15 +9,39 @@ import org.springframework.stereotype.Service;
 
 import java.time.*;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class HorarioService {
 
-    private final AgendamentoRepository agendamentoRepository;
+    /** Rótulos "HH:mm" pré-calculados para cada minuto do dia. */
+    private static final String[] ROTULOS = new String[OcupacaoDia.MINUTOS_DIA];
+
+    static {
+        for (int m = 0; m < OcupacaoDia.MINUTOS_DIA; m++) {
+            ROTULOS[m] = LocalTime.of(m / 60, m % 60).toString();
+        }
+    }
 
-    public HorarioService(AgendamentoRepository agendamentoRepository) {
+    private final AgendamentoRepository agendamentoRepository;
+    private final CacheHorarios cacheHorarios;
+    private final EventosAgenda eventosAgenda;
+    private final ReservasHorario reservasHorario;
+    private final ConsistenciaReplica consistenciaReplica;
+
+    /** Configuração de agenda já interpretada, por loja */
+    private final Map<Long, ConfiguracaoAgenda> configuracoes = new ConcurrentHashMap<>();
+
+    public HorarioService(AgendamentoRepository agendamentoRepository,
+                          CacheHorarios cacheHorarios,
+                          EventosAgenda eventosAgenda,
+                          ReservasHorario reservasHorario,
+                          ConsistenciaReplica consistenciaReplica) {
         this.agendamentoRepository = agendamentoRepository;
+        this.cacheHorarios = cacheHorarios;
+        this.eventosAgenda = eventosAgenda;
+        this.reservasHorario = reservasHorario;
+        this.consistenciaReplica = consistenciaReplica;
     }
 
     // ============================
@@ -35,135 +59,532 @@ public class HorarioService {
             LocalDate data,
             Servico servicoOpcional,
             Profissional profissionalOpcional) {
+        return gerarHorariosDisponiveis(loja, data, servicoOpcional, profissionalOpcional, null);
+    }
 
-        if (Boolean.FALSE.equals(loja.getAtiva())) {
+    private List<String> gerarHorariosDisponiveis(
+            Loja loja,
+            LocalDate data,
+            Servico servicoOpcional,
+            Profissional profissionalOpcional,
+            ReservasHorario.Reserva reservaIgnorada) {
+
+        ConfiguracaoAgenda config = configuracao(loja);
+        if (!config.ativa()) {
             return List.of();
         }
 
-        // --- Dias de funcionamento ---
-        Set<DayOfWeek> diasFuncionamento = parseDiasFuncionamento(loja.getDiasFuncionamento());
-        DayOfWeek dow = data.getDayOfWeek();
+        int duracaoSlot = duracaoSlot(config, servicoOpcional);
+        Long profissionalId = profissionalFiltrado(config, profissionalOpcional);
 
-        if (!diasFuncionamento.isEmpty() && !diasFuncionamento.contains(dow)) {
-            return List.of();
+        int[] inicios = cacheHorarios.obter(loja.getId(), data, duracaoSlot, profissionalId, () -> {
+            // ============================
+            // AGENDAMENTOS EXISTENTES
+            // ============================
+            List<Agendamento> agendamentosDoDia = buscarAgendamentos(
+                    loja.getId(), profissionalId, data.atStartOfDay(), data.atTime(LocalTime.MAX));
+
+            return calcularInicios(config, data, duracaoSlot, agendamentosDoDia);
+        });
+
+        return rotulos(inicios, calcularInicioMinimo(data, config.buffer()),
+                reservasHorario.ocupacao(loja.getId(), data, profissionalId, reservaIgnorada),
+                duracaoSlot + config.buffer());
+    }
+
+    // ============================
+    // PERÍODO — uma consulta para vários dias
+    // ============================
+    public Map<LocalDate, List<String>> gerarHorariosPorPeriodo(
+            Loja loja,
+            LocalDate dataInicio,
+            LocalDate dataFim,
+            Servico servicoOpcional,
+            Profissional profissionalOpcional) {
+
+        ConfiguracaoAgenda config = configuracao(loja);
+
+        List<LocalDate> datas = new ArrayList<>();
+        for (LocalDate dia = dataInicio; !dia.isAfter(dataFim); dia = dia.plusDays(1)) {
+            datas.add(dia);
         }
 
-        // --- Abertura / Fechamento ---
-        LocalTime abertura = parseHora(loja.getHorarioAbertura(), LocalTime.of(9, 0));
-        LocalTime fechamento = parseHora(loja.getHorarioFechamento(), LocalTime.of(18, 0));
+        Map<LocalDate, List<String>> resultado = new LinkedHashMap<>();
+        if (!config.ativa()) {
+            datas.forEach(dia -> resultado.put(dia, List.of()));
+            return resultado;
+        }
+
+        int duracaoSlot = duracaoSlot(config, servicoOpcional);
+        Long profissionalId = profissionalFiltrado(config, profissionalOpcional);
+
+        // Apenas os dias ausentes do cache vão ao banco, numa única consulta
+        Map<LocalDate, int[]> iniciosPorDia = cacheHorarios.obterPeriodo(
+                loja.getId(), datas, duracaoSlot, profissionalId,
+                faltantes -> calcularPeriodo(loja.getId(), config, faltantes, duracaoSlot, profissionalId));
+
+        iniciosPorDia.forEach((dia, inicios) ->
+                resultado.put(dia, rotulos(inicios, calcularInicioMinimo(dia, config.buffer()),
+                        reservasHorario.ocupacao(loja.getId(), dia, profissionalId), duracaoSlot + config.buffer())));
+        return resultado;
+    }
+
+    // ============================
+    // PRÓXIMOS HORÁRIOS — busca adiante, em blocos de dias
+    // ============================
+
+    private static final int DIAS_POR_BLOCO = 7;
 
-        if (!fechamento.isAfter(abertura)) {
-            fechamento = abertura.plusHours(1);
+    /**
+     * Primeiros {@code quantidade} horários livres a partir de {@code dataInicio},
+     * olhando no máximo {@code maxDias} dias. Dias fechados são pulados sem
+     * consulta; os abertos são buscados em blocos (uma consulta por bloco,
+     * só para os dias fora do cache) e a busca para assim que completar.
+     */
+    public List<LocalDateTime> buscarProximosHorarios(
+            Loja loja,
+            LocalDate dataInicio,
+            Servico servicoOpcional,
+            Profissional profissionalOpcional,
+            int quantidade,
+            int maxDias) {
+
+        ConfiguracaoAgenda config = configuracao(loja);
+        List<LocalDateTime> resultado = new ArrayList<>(quantidade);
+        if (!config.ativa() || config.diasFuncionamento() == 0) {
+            return resultado;
         }
 
-        // --- Intervalo e Buffer ---
-        int intervaloMin = Optional.ofNullable(loja.getIntervaloAtendimento()).orElse(30);
-        int bufferMin = Optional.ofNullable(loja.getTempoBufferMinutos()).orElse(0);
+        int duracaoSlot = duracaoSlot(config, servicoOpcional);
+        Long profissionalId = profissionalFiltrado(config, profissionalOpcional);
+        LocalDate limite = dataInicio.plusDays(maxDias);
 
-        // Serviço com duração personalizada
-        int duracaoSlot = intervaloMin;
-        if (servicoOpcional != null &&
-                servicoOpcional.getDuracaoMinutos() != null &&
-                servicoOpcional.getDuracaoMinutos() > 0) {
-            duracaoSlot = servicoOpcional.getDuracaoMinutos();
+        LocalDate dia = dataInicio;
+        while (dia.isBefore(limite) && resultado.size() < quantidade) {
+            List<LocalDate> abertos = new ArrayList<>(DIAS_POR_BLOCO);
+            for (int i = 0; i < DIAS_POR_BLOCO && dia.isBefore(limite); i++, dia = dia.plusDays(1)) {
+                if (config.abreEm(dia.getDayOfWeek())) {
+                    abertos.add(dia);
+                }
+            }
+            if (abertos.isEmpty()) {
+                continue;
+            }
+
+            Map<LocalDate, int[]> iniciosPorDia = cacheHorarios.obterPeriodo(
+                    loja.getId(), abertos, duracaoSlot, profissionalId,
+                    faltantes -> calcularPeriodo(loja.getId(), config, faltantes, duracaoSlot, profissionalId));
+
+            for (Map.Entry<LocalDate, int[]> entrada : iniciosPorDia.entrySet()) {
+                LocalDate data = entrada.getKey();
+                List<String> livres = rotulos(entrada.getValue(), calcularInicioMinimo(data, config.buffer()),
+                        reservasHorario.ocupacao(loja.getId(), data, profissionalId), duracaoSlot + config.buffer());
+
+                for (String horario : livres) {
+                    resultado.add(data.atTime(LocalTime.parse(horario)));
+                    if (resultado.size() == quantidade) {
+                        return resultado;
+                    }
+                }
+            }
         }
+        return resultado;
+    }
 
-        LocalDateTime inicioDia = LocalDateTime.of(data, abertura);
-        LocalDateTime fimDia = LocalDateTime.of(data, fechamento);
-        LocalDateTime agora = LocalDateTime.now();
+    private Map<LocalDate, int[]> calcularPeriodo(
+            Long lojaId,
+            ConfiguracaoAgenda config,
+            List<LocalDate> datas,
+            int duracaoSlot,
+            Long profissionalId) {
+
+        LocalDate primeiro = datas.get(0);
+        LocalDate ultimo = datas.get(datas.size() - 1);
+        List<Agendamento> agendamentosDoPeriodo = buscarAgendamentos(
+                lojaId, profissionalId, primeiro.atStartOfDay(), ultimo.atTime(LocalTime.MAX));
+
+        Map<LocalDate, List<Agendamento>> porDia = new HashMap<>();
+        for (Agendamento ag : agendamentosDoPeriodo) {
+            if (ag.getDataHora() != null) {
+                porDia.computeIfAbsent(ag.getDataHora().toLocalDate(), d -> new ArrayList<>()).add(ag);
+            }
+        }
 
-        // ============================
-        // AGENDAMENTOS EXISTENTES
-        // ============================
-        List<Agendamento> agendamentosDoDia;
-
-        if (profissionalOpcional != null &&
-            Boolean.TRUE.equals(loja.getUsaProfissionais())) {
-
-            agendamentosDoDia = agendamentoRepository
-                    .findByLojaIdAndProfissionalIdAndDataHoraBetween(
-                            loja.getId(),
-                            profissionalOpcional.getId(),
-                            inicioDia,
-                            fimDia);
-        } else {
-            agendamentosDoDia = agendamentoRepository
-                    .findByLojaIdAndDataHoraBetween(
-                            loja.getId(), inicioDia, fimDia);
+        Map<LocalDate, int[]> resultado = new HashMap<>();
+        for (LocalDate dia : datas) {
+            resultado.put(dia, calcularInicios(
+                    config, dia, duracaoSlot, porDia.getOrDefault(dia, List.of())));
         }
+        return resultado;
+    }
 
-        List<LocalDateTime> ocupados = agendamentosDoDia
-                .stream()
-                .map(Agendamento::getDataHora)
-                .collect(Collectors.toList());
+    // ============================
+    // QUALQUER PROFISSIONAL — uma consulta, uma varredura
+    // ============================
 
-        // ============================
-        // GERAR HORÁRIOS
-        // ============================
-        List<String> resultado = new ArrayList<>();
-        LocalDateTime cursor = inicioDia;
+    /**
+     * Horários do dia em que ao menos um dos profissionais está livre,
+     * com a lista de profissionais livres em cada horário.
+     */
+    public Map<String, List<Profissional>> gerarHorariosPorProfissional(
+            Loja loja,
+            LocalDate data,
+            Servico servicoOpcional,
+            List<Profissional> profissionais) {
+
+        ConfiguracaoAgenda config = configuracao(loja);
+        Map<String, List<Profissional>> resultado = new LinkedHashMap<>();
+
+        if (!config.ativa() || profissionais.isEmpty() || !config.abreEm(data.getDayOfWeek())) {
+            return resultado;
+        }
+
+        int duracaoSlot = duracaoSlot(config, servicoOpcional);
+        int intervaloMin = config.intervalo();
+        int bufferMin = config.buffer();
+
+        // Todos os agendamentos do dia numa única consulta, separados por profissional
+        List<Agendamento> agendamentosDoDia = buscarAgendamentos(
+                loja.getId(), null, data.atStartOfDay(), data.atTime(LocalTime.MAX));
+
+        Map<Long, List<Agendamento>> porProfissional = new HashMap<>();
+        for (Agendamento ag : agendamentosDoDia) {
+            if (ag.getProfissional() != null) {
+                porProfissional.computeIfAbsent(ag.getProfissional().getId(), id -> new ArrayList<>()).add(ag);
+            }
+        }
 
-        while (!cursor.isAfter(fimDia.minusMinutes(duracaoSlot))) {
+        OcupacaoDia[] ocupacoes = new OcupacaoDia[profissionais.size()];
+        OcupacaoDia[] reservadas = new OcupacaoDia[profissionais.size()];
+        for (int i = 0; i < ocupacoes.length; i++) {
+            Long profissionalId = profissionais.get(i).getId();
+            ocupacoes[i] = montarOcupacao(
+                    porProfissional.getOrDefault(profissionalId, List.of()), intervaloMin, bufferMin);
+            reservadas[i] = reservasHorario.ocupacao(loja.getId(), data, profissionalId);
+        }
 
-            // Bloqueia horários passados + buffer
-            boolean horarioPassado =
-                    (!cursor.toLocalDate().isAfter(agora.toLocalDate())) &&
-                            cursor.isBefore(agora.plusMinutes(bufferMin));
+        int inicioMinimo = calcularInicioMinimo(data, bufferMin);
 
-            if (horarioPassado) {
-                cursor = cursor.plusMinutes(intervaloMin);
+        for (int cursor = config.abertura(); cursor + duracaoSlot <= config.fechamento(); cursor += intervaloMin) {
+            if (cursor < inicioMinimo) {
                 continue;
             }
 
-            // Verifica conflito
-            boolean ocupado = false;
-            for (LocalDateTime ag : ocupados) {
-                if (ag.equals(cursor)) {
-                    ocupado = true;
-                    break;
+            List<Profissional> livres = null;
+            for (int i = 0; i < ocupacoes.length; i++) {
+                int fimSlot = cursor + duracaoSlot + bufferMin;
+                if (ocupacoes[i].livre(cursor, fimSlot)
+                        && (reservadas[i] == null || reservadas[i].livre(cursor, fimSlot))) {
+                    if (livres == null) {
+                        livres = new ArrayList<>(ocupacoes.length);
+                    }
+                    livres.add(profissionais.get(i));
                 }
             }
 
-            if (!ocupado) {
-                resultado.add(cursor.toLocalTime().toString()); // Ex: "14:30"
+            if (livres != null) {
+                resultado.put(ROTULOS[cursor], livres);
             }
+        }
+
+        return resultado;
+    }
+
+    // ============================
+    // RESERVA TEMPORÁRIA
+    // ============================
 
-            cursor = cursor.plusMinutes(intervaloMin);
+    /** O horário exato ainda aparece entre os disponíveis (agendamentos e reservas) */
+    public boolean estaDisponivel(Loja loja, LocalDateTime dataHora, Servico servicoOpcional,
+                                  Profissional profissionalOpcional) {
+        return estaDisponivel(loja, dataHora, servicoOpcional, profissionalOpcional, null);
+    }
+
+    /** Idem, sem contar a reserva do próprio cliente, que segura esse horário para ele */
+    public boolean estaDisponivel(Loja loja, LocalDateTime dataHora, Servico servicoOpcional,
+                                  Profissional profissionalOpcional, ReservasHorario.Reserva reservaPropria) {
+        List<String> horarios = gerarHorariosDisponiveis(
+                loja, dataHora.toLocalDate(), servicoOpcional, profissionalOpcional, reservaPropria);
+        return horarios.contains(dataHora.toLocalTime().toString());
+    }
+
+    /**
+     * O intervalo do agendamento (duração + buffer) não colide com outro
+     * agendamento ativo do dia. Só a sobreposição: grade, funcionamento,
+     * horários passados e reservas não contam, porque o painel registra
+     * encaixes e atendimentos já feitos. Chamar sob a trava do dia.
+     */
+    public boolean semSobreposicao(Loja loja, LocalDateTime dataHora, Servico servicoOpcional,
+                                   Profissional profissionalOpcional, Long agendamentoIgnorado) {
+        ConfiguracaoAgenda config = configuracao(loja);
+        LocalDate data = dataHora.toLocalDate();
+        List<Agendamento> agendamentosDoDia = buscarAgendamentos(loja.getId(),
+                profissionalFiltrado(config, profissionalOpcional), data.atStartOfDay(), data.atTime(LocalTime.MAX));
+        if (agendamentoIgnorado != null) {
+            agendamentosDoDia = agendamentosDoDia.stream()
+                    .filter(ag -> !agendamentoIgnorado.equals(ag.getId()))
+                    .toList();
         }
 
+        OcupacaoDia ocupacao = montarOcupacao(agendamentosDoDia, config.intervalo(), config.buffer());
+        int inicio = ConfiguracaoAgenda.minutoDoDia(dataHora.toLocalTime());
+        return ocupacao.livre(inicio, inicio + duracaoSlot(config, servicoOpcional) + config.buffer());
+    }
+
+    /**
+     * Reserva ativa do token, se ela segura exatamente esse horário (loja,
+     * dia, intervalo e profissional); null se venceu ou é de outro horário.
+     */
+    public ReservasHorario.Reserva reservaDoHorario(String token, Loja loja, LocalDateTime dataHora,
+                                                   Servico servicoOpcional, Profissional profissionalOpcional) {
+        ReservasHorario.Reserva reserva = reservasHorario.buscar(token);
+        if (reserva == null) return null;
+
+        ConfiguracaoAgenda config = configuracao(loja);
+        int inicio = ConfiguracaoAgenda.minutoDoDia(dataHora.toLocalTime());
+        int fim = inicio + duracaoSlot(config, servicoOpcional) + config.buffer();
+
+        boolean mesmoHorario = reserva.lojaId().equals(loja.getId())
+                && reserva.data().equals(dataHora.toLocalDate())
+                && reserva.inicio() == inicio
+                && reserva.fim() == fim
+                && Objects.equals(reserva.profissionalId(), profissionalFiltrado(config, profissionalOpcional));
+        return mesmoHorario ? reserva : null;
+    }
+
+    /**
+     * Segura o horário pelo tempo configurado. Deve ser chamado sob a trava do
+     * dia, depois de {@link #estaDisponivel}. Retorna null se o limite de
+     * reservas ativas foi atingido.
+     */
+    public ReservasHorario.Reserva reservar(Loja loja, LocalDateTime dataHora, Servico servicoOpcional,
+                                            Profissional profissionalOpcional) {
+        ConfiguracaoAgenda config = configuracao(loja);
+        int inicio = ConfiguracaoAgenda.minutoDoDia(dataHora.toLocalTime());
+        int fim = inicio + duracaoSlot(config, servicoOpcional) + config.buffer();
+
+        return reservasHorario.criar(loja.getId(), dataHora.toLocalDate(), inicio, fim,
+                profissionalFiltrado(config, profissionalOpcional));
+    }
+
+    // ============================
+    // CONFIGURAÇÃO DA LOJA
+    // ============================
+
+    /** Configuração interpretada da loja, montada na primeira consulta */
+    public ConfiguracaoAgenda configuracao(Loja loja) {
+        return configuracoes.computeIfAbsent(loja.getId(), id -> ConfiguracaoAgenda.de(loja));
+    }
+
+    /**
+     * Chamado quando a configuração da loja é salva: troca a configuração
+     * interpretada e descarta os horários calculados com a anterior.
+     */
+    public void atualizarConfiguracao(Loja loja) {
+        configuracoes.put(loja.getId(), ConfiguracaoAgenda.de(loja));
+        invalidarLoja(loja.getId());
+    }
+
+    // ============================
+    // INVALIDAÇÃO DO CACHE
+    // ============================
+
+    /** Chamado quando um agendamento do dia é criado ou muda de status */
+    public void invalidarDia(Long lojaId, LocalDate data) {
+        consistenciaReplica.registrarEscrita(lojaId);
+        cacheHorarios.invalidarDia(lojaId, data);
+    }
+
+    // ============================
+    // MUDANÇAS NA AGENDA
+    // ============================
+
+    /** Agendamento gravado: descarta o dia do cache e avisa quem acompanha o dia */
+    public void agendamentoCriado(Agendamento ag) {
+        if (ag.getDataHora() == null) return;
+
+        invalidarDia(ag.getLoja().getId(), ag.getDataHora().toLocalDate());
+        if (!isCancelado(ag)) {
+            publicar(ag, "ocupado");
+        }
+    }
+
+    /** Status alterado: só publica quando o agendamento passa a ocupar ou a liberar o horário */
+    public void statusAlterado(Agendamento ag, String statusAnterior) {
+        if (ag.getDataHora() == null) return;
+
+        invalidarDia(ag.getLoja().getId(), ag.getDataHora().toLocalDate());
+
+        boolean estavaCancelado = "cancelado".equalsIgnoreCase(statusAnterior);
+        if (estavaCancelado != isCancelado(ag)) {
+            publicar(ag, estavaCancelado ? "ocupado" : "liberado");
+        }
+    }
+
+    /** Publica o intervalo bloqueado pelo agendamento (duração + buffer) */
+    private void publicar(Agendamento ag, String tipo) {
+        ConfiguracaoAgenda config = configuracao(ag.getLoja());
+        int inicio = ConfiguracaoAgenda.minutoDoDia(ag.getDataHora().toLocalTime());
+        int fim = inicio + duracaoAgendamento(ag, config.intervalo()) + config.buffer();
+
+        eventosAgenda.publicar(ag.getLoja().getId(), ag.getDataHora().toLocalDate(), tipo, inicio, fim,
+                ag.getProfissional() != null ? ag.getProfissional().getId() : null);
+    }
+
+    /** Chamado quando algo que afeta todos os dias da loja muda (ex.: duração de um serviço) */
+    public void invalidarLoja(Long lojaId) {
+        consistenciaReplica.registrarEscrita(lojaId);
+        cacheHorarios.invalidarLoja(lojaId);
+    }
+
+    // ============================
+    // CÁLCULO DOS HORÁRIOS DE UM DIA
+    // ============================
+
+    /**
+     * Minutos de início livres do dia, sem considerar o horário atual
+     * (o filtro de horários passados é aplicado na leitura, pois muda com o tempo).
+     */
+    private int[] calcularInicios(
+            ConfiguracaoAgenda config,
+            LocalDate data,
+            int duracaoSlot,
+            List<Agendamento> agendamentosDoDia) {
+
+        // --- Dias de funcionamento ---
+        if (!config.abreEm(data.getDayOfWeek())) {
+            return new int[0];
+        }
+
+        int intervaloMin = config.intervalo();
+        int bufferMin = config.buffer();
+
+        // Mapa de ocupação do dia, montado uma única vez:
+        // cada agendamento bloqueia [início, início + duração + buffer)
+        OcupacaoDia ocupacao = montarOcupacao(agendamentosDoDia, intervaloMin, bufferMin);
+
+        // ============================
+        // GERAR HORÁRIOS
+        // ============================
+        int inicioMin = config.abertura();
+        int fimMin = config.fechamento();
+
+        int[] livres = new int[(fimMin - inicioMin) / intervaloMin + 1];
+        int total = 0;
+
+        for (int cursor = inicioMin; cursor + duracaoSlot <= fimMin; cursor += intervaloMin) {
+            // Verifica conflito com qualquer agendamento que se sobreponha ao slot
+            if (ocupacao.livre(cursor, cursor + duracaoSlot + bufferMin)) {
+                livres[total++] = cursor;
+            }
+        }
+
+        return Arrays.copyOf(livres, total);
+    }
+
+    /**
+     * Converte os minutos livres em "HH:mm", bloqueando horários passados + buffer
+     * e os que colidem com reservas temporárias (aplicadas na leitura, fora do cache).
+     */
+    private List<String> rotulos(int[] inicios, int inicioMinimo, OcupacaoDia reservadas, int duracaoComBuffer) {
+        List<String> resultado = new ArrayList<>(inicios.length);
+        for (int inicio : inicios) {
+            if (inicio >= inicioMinimo
+                    && (reservadas == null || reservadas.livre(inicio, inicio + duracaoComBuffer))) {
+                resultado.add(ROTULOS[inicio]); // Ex: "14:30"
+            }
+        }
         return resultado;
     }
 
+    private List<Agendamento> buscarAgendamentos(
+            Long lojaId,
+            Long profissionalId,
+            LocalDateTime inicio,
+            LocalDateTime fim) {
+
+        // Logo após uma escrita na loja, lê do primário: o resultado vai para o cache de horários
+        return consistenciaReplica.ler(lojaId, () -> {
+            if (profissionalId != null) {
+                return agendamentoRepository
+                        .findByLojaIdAndProfissionalIdAndDataHoraBetween(
+                                lojaId,
+                                profissionalId,
+                                inicio,
+                                fim);
+            }
+            return agendamentoRepository
+                    .findByLojaIdAndDataHoraBetween(
+                            lojaId, inicio, fim);
+        });
+    }
+
     // =====================================================
-    // MÉTODOS AUXILIARES (agora funcionando 100%)
+    // MÉTODOS AUXILIARES
     // =====================================================
 
-    /** Converte "09:00" → LocalTime */
-    private LocalTime parseHora(String valor, LocalTime padrao) {
-        if (valor == null || valor.isBlank()) return padrao;
+    /** Profissional considerado no cálculo (só quando a loja trabalha com profissionais) */
+    private Long profissionalFiltrado(ConfiguracaoAgenda config, Profissional profissionalOpcional) {
+        if (profissionalOpcional != null && config.usaProfissionais()) {
+            return profissionalOpcional.getId();
+        }
+        return null;
+    }
+
+    /** Serviço com duração personalizada, ou o intervalo padrão da loja */
+    private int duracaoSlot(ConfiguracaoAgenda config, Servico servicoOpcional) {
+        if (servicoOpcional != null &&
+                servicoOpcional.getDuracaoMinutos() != null &&
+                servicoOpcional.getDuracaoMinutos() > 0) {
+            return servicoOpcional.getDuracaoMinutos();
+        }
+        return config.intervalo();
+    }
 
-        try {
-            return LocalTime.parse(valor);
-        } catch (Exception e) {
-            return padrao;
+    /** Monta o mapa de ocupação a partir dos agendamentos do dia */
+    private OcupacaoDia montarOcupacao(List<Agendamento> agendamentos, int intervaloMin, int bufferMin) {
+        OcupacaoDia ocupacao = new OcupacaoDia();
+        for (Agendamento ag : agendamentos) {
+            if (ag.getDataHora() == null || isCancelado(ag)) {
+                continue;
+            }
+            int inicio = ConfiguracaoAgenda.minutoDoDia(ag.getDataHora().toLocalTime());
+            ocupacao.marcar(inicio, inicio + duracaoAgendamento(ag, intervaloMin) + bufferMin);
         }
+        return ocupacao;
     }
 
-    /** Converte "1,2,3,4" → Set<DayOfWeek> */
-    private Set<DayOfWeek> parseDiasFuncionamento(String dias) {
-        if (dias == null || dias.isBlank()) return Set.of();
+    /** Duração do serviço do agendamento, ou o intervalo padrão da loja */
+    private int duracaoAgendamento(Agendamento ag, int intervaloMin) {
+        Servico servico = ag.getServico();
+        if (servico != null && servico.getDuracaoMinutos() != null && servico.getDuracaoMinutos() > 0) {
+            return servico.getDuracaoMinutos();
+        }
+        return intervaloMin;
+    }
 
-        try {
-            List<String> list = Arrays.asList(dias.split(","));
+    /** Agendamentos cancelados não ocupam horário */
+    private boolean isCancelado(Agendamento ag) {
+        return "cancelado".equalsIgnoreCase(ag.getStatus());
+    }
 
-            return list.stream()
-                    .map(String::trim)
-                    .map(Integer::parseInt)
-                    .map(i -> DayOfWeek.of(i))
-                    .collect(Collectors.toSet());
+    /**
+     * Primeiro minuto do dia que ainda pode ser agendado (agora + buffer).
+     * Dias passados retornam MINUTOS_DIA, bloqueando todos os horários.
+     */
+    private int calcularInicioMinimo(LocalDate data, int bufferMin) {
+        LocalDateTime agora = LocalDateTime.now();
+        if (data.isAfter(agora.toLocalDate())) {
+            return 0;
+        }
 
-        } catch (Exception e) {
-            return Set.of();
+        LocalDateTime limite = agora.plusMinutes(bufferMin);
+        if (limite.toLocalDate().isAfter(data)) {
+            return OcupacaoDia.MINUTOS_DIA;
         }
+
+        LocalTime hora = limite.toLocalTime();
+        int minuto = ConfiguracaoAgenda.minutoDoDia(hora);
+        return (hora.getSecond() > 0 || hora.getNano() > 0) ? minuto + 1 : minuto;
     }
 }
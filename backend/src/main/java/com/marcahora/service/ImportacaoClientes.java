@@ -0,0 +1,372 @@
+package com.marcahora.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marcahora.model.Cliente;
+import com.marcahora.model.Loja;
+import com.marcahora.repository.ClienteRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Importação de clientes em massa (CSV ou NDJSON), lida linha a linha.
+ *
+ * As chaves dos clientes já cadastrados (e-mail, telefone → id) são lidas
+ * uma vez; as linhas são processadas em blocos, cada um numa transação que
+ * busca pela chave primária os clientes citados e grava novos e alterados
+ * em lote (o id de Cliente vem de sequence, o que permite o batch do
+ * Hibernate). Ao fim de cada transação o contexto de persistência é
+ * descartado, então a memória não cresce com o tamanho do arquivo.
+ *
+ * Um cliente existente é encontrado por e-mail ou, na falta dele, por
+ * telefone (chaves normalizadas, como no agendamento público). Campos
+ * vazios no arquivo não apagam dados já cadastrados.
+ *
+ * Se um bloco esbarra no índice único (cliente cadastrado por outro caminho
+ * durante a importação), as chaves do bloco são relidas e ele é gravado de
+ * novo uma vez; se falhar de novo, as linhas do bloco vão para os erros e a
+ * importação segue. Os contadores só incluem o que foi commitado.
+ */
+@Service
+public class ImportacaoClientes {
+
+    public enum Formato { CSV, NDJSON }
+
+    private static final int LINHAS_POR_BLOCO = 1000;
+    private static final int MAX_ERROS_LISTADOS = 20;
+
+    private final ClienteRepository clienteRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public ImportacaoClientes(ClienteRepository clienteRepository,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper) {
+        this.clienteRepository = clienteRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    private record Linha(int numero, String nome, String email, String telefone, String anotacoes) { }
+
+    /** Contadores da importação */
+    public static class Resultado {
+        public int linhas;
+        public int inseridos;
+        public int atualizados;
+        public int ignorados;
+        public long duracaoMs;
+        public long linhasPorSegundo;
+        public final List<Map<String, Object>> erros = new ArrayList<>();
+
+        void erro(int linha, String motivo) {
+            ignorados++;
+            if (erros.size() < MAX_ERROS_LISTADOS) {
+                erros.add(Map.of("linha", linha, "motivo", motivo));
+            }
+        }
+    }
+
+    // ============================
+    // LEITURA
+    // ============================
+
+    public Resultado importar(Loja loja, BufferedReader leitor, Formato formato) throws IOException {
+        long inicio = System.nanoTime();
+        Resultado resultado = new Resultado();
+
+        String[] colunas = null;
+        char separador = ',';
+        int numero = 0;
+
+        Chaves chaves = carregarChaves(loja);
+        List<Linha> bloco = new ArrayList<>(LINHAS_POR_BLOCO);
+        String texto;
+        while ((texto = leitor.readLine()) != null) {
+            numero++;
+            if (texto.isBlank()) continue;
+
+            if (formato == Formato.CSV && colunas == null) {
+                // Cabeçalho: define a ordem das colunas e o separador (, ou ;).
+                // Sem o BOM que o Excel põe no início, senão a 1ª coluna não casa
+                if (texto.charAt(0) == '\uFEFF') texto = texto.substring(1);
+                separador = texto.indexOf(';') >= 0 && texto.indexOf(',') < 0 ? ';' : ',';
+                colunas = dividirCsv(texto, separador).stream()
+                        .map(c -> c.trim().toLowerCase(Locale.ROOT))
+                        .toArray(String[]::new);
+                continue;
+            }
+
+            resultado.linhas++;
+            Linha linha = formato == Formato.CSV
+                    ? lerCsv(numero, texto, colunas, separador, resultado)
+                    : lerJson(numero, texto, resultado);
+            if (linha == null) continue;
+
+            if (linha.nome().isEmpty() && linha.email().isEmpty() && linha.telefone().isEmpty()) {
+                resultado.erro(numero, "Linha sem nome, e-mail ou telefone");
+                continue;
+            }
+
+            bloco.add(linha);
+            if (bloco.size() == LINHAS_POR_BLOCO) {
+                gravarBloco(loja, bloco, chaves, resultado);
+                bloco.clear();
+            }
+        }
+        if (!bloco.isEmpty()) {
+            gravarBloco(loja, bloco, chaves, resultado);
+        }
+
+        long nanos = System.nanoTime() - inicio;
+        resultado.duracaoMs = nanos / 1_000_000;
+        resultado.linhasPorSegundo = nanos == 0 ? 0 : resultado.linhas * 1_000_000_000L / nanos;
+        return resultado;
+    }
+
+    private Linha lerCsv(int numero, String texto, String[] colunas, char separador, Resultado resultado) {
+        List<String> valores = dividirCsv(texto, separador);
+        Map<String, String> campos = new HashMap<>();
+        for (int i = 0; i < colunas.length && i < valores.size(); i++) {
+            campos.put(colunas[i], valores.get(i));
+        }
+        return linha(numero, campos.get("nome"), campos.get("email"), campos.get("telefone"), campos.get("anotacoes"));
+    }
+
+    private Linha lerJson(int numero, String texto, Resultado resultado) {
+        try {
+            JsonNode no = objectMapper.readTree(texto);
+            return linha(numero, no.path("nome").asText(""), no.path("email").asText(""),
+                    no.path("telefone").asText(""), no.path("anotacoes").asText(""));
+        } catch (IOException e) {
+            resultado.erro(numero, "JSON inválido");
+            return null;
+        }
+    }
+
+    private static Linha linha(int numero, String nome, String email, String telefone, String anotacoes) {
+        return new Linha(numero, limpar(nome), limpar(email), limpar(telefone), limpar(anotacoes));
+    }
+
+    private static String limpar(String valor) {
+        return valor == null ? "" : valor.trim();
+    }
+
+    /** Divide uma linha CSV respeitando aspas ("a, b" e "" para aspas literais) */
+    static List<String> dividirCsv(String linha, char separador) {
+        List<String> valores = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (entreAspas) {
+                if (c == '"' && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                    atual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreAspas = false;
+                } else {
+                    atual.append(c);
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == separador) {
+                valores.add(atual.toString());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        valores.add(atual.toString());
+        return valores;
+    }
+
+    // ============================
+    // GRAVAÇÃO POR BLOCO
+    // ============================
+
+    /**
+     * Chaves (e-mail, telefone → id) dos clientes da loja, carregadas uma vez
+     * no início e atualizadas com os inseridos. Só as chaves ficam em memória;
+     * as entidades de cada bloco são buscadas pela chave primária.
+     */
+    private static class Chaves {
+        final Map<String, Long> idPorEmail = new HashMap<>();
+        final Map<String, Long> idPorTelefone = new HashMap<>();
+        // Registradas pelo bloco em andamento: saem se a transação dele voltar
+        final List<String> emailsDoBloco = new ArrayList<>();
+        final List<String> telefonesDoBloco = new ArrayList<>();
+
+        Long resolver(Linha linha) {
+            Long id = null;
+            String email = Cliente.normalizarEmail(linha.email());
+            String telefone = Cliente.normalizarTelefone(linha.telefone());
+            if (email != null) id = idPorEmail.get(email);
+            if (id == null && telefone != null) id = idPorTelefone.get(telefone);
+            return id;
+        }
+
+        /** Recebe as chaves já normalizadas */
+        void registrar(Long id, String email, String telefone) {
+            if (email != null && idPorEmail.putIfAbsent(email, id) == null) emailsDoBloco.add(email);
+            if (telefone != null && idPorTelefone.putIfAbsent(telefone, id) == null) telefonesDoBloco.add(telefone);
+        }
+
+        void confirmarBloco() {
+            emailsDoBloco.clear();
+            telefonesDoBloco.clear();
+        }
+
+        void desfazerBloco() {
+            emailsDoBloco.forEach(idPorEmail::remove);
+            telefonesDoBloco.forEach(idPorTelefone::remove);
+            confirmarBloco();
+        }
+
+        /** false se o e-mail/telefone já é de outro cliente (o índice único recusaria) */
+        boolean emailLivre(String email, Long id) {
+            Long dono = idPorEmail.get(Cliente.normalizarEmail(email));
+            return dono == null || dono.equals(id);
+        }
+
+        boolean telefoneLivre(String telefone, Long id) {
+            Long dono = idPorTelefone.get(Cliente.normalizarTelefone(telefone));
+            return dono == null || dono.equals(id);
+        }
+    }
+
+    private Chaves carregarChaves(Loja loja) {
+        Chaves chaves = new Chaves();
+        for (Object[] linha : clienteRepository.listarChavesPorLoja(loja.getId())) {
+            chaves.registrar((Long) linha[0], (String) linha[1], (String) linha[2]);
+        }
+        return chaves;
+    }
+
+    /** Recarrega as chaves dos e-mails e telefones citados no bloco */
+    private void recarregarChaves(Loja loja, List<Linha> bloco, Chaves chaves) {
+        Set<String> emails = new HashSet<>();
+        Set<String> telefones = new HashSet<>();
+        for (Linha linha : bloco) {
+            String email = Cliente.normalizarEmail(linha.email());
+            String telefone = Cliente.normalizarTelefone(linha.telefone());
+            if (email != null) emails.add(email);
+            if (telefone != null) telefones.add(telefone);
+        }
+        // "in ()" vazio não é SQL válido em todo banco
+        if (emails.isEmpty()) emails.add("");
+        if (telefones.isEmpty()) telefones.add("");
+        for (Object[] linha : clienteRepository.listarChavesPorContato(loja.getId(), emails, telefones)) {
+            chaves.registrar((Long) linha[0], (String) linha[1], (String) linha[2]);
+        }
+        chaves.confirmarBloco();
+    }
+
+    private void gravarBloco(Loja loja, List<Linha> bloco, Chaves chaves, Resultado resultado) {
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                Resultado parcial = tentarBloco(loja, bloco, chaves);
+                chaves.confirmarBloco();
+                resultado.inseridos += parcial.inseridos;
+                resultado.atualizados += parcial.atualizados;
+                resultado.ignorados += parcial.ignorados;
+                return;
+            } catch (DataIntegrityViolationException e) {
+                // Nada do bloco foi gravado: tira as chaves que ele registrou
+                chaves.desfazerBloco();
+                if (tentativa == 2) {
+                    for (Linha linha : bloco) {
+                        resultado.erro(linha.numero(), "Bloco não gravado: e-mail ou telefone já cadastrado");
+                    }
+                    return;
+                }
+                recarregarChaves(loja, bloco, chaves);
+            }
+        }
+    }
+
+    /** Grava o bloco numa transação; os contadores valem só se ela for commitada */
+    private Resultado tentarBloco(Loja loja, List<Linha> bloco, Chaves chaves) {
+        Resultado resultado = new Resultado();
+        transactionTemplate.executeWithoutResult(status -> {
+            // Existentes citados no bloco, numa consulta pela chave primária
+            Set<Long> ids = new HashSet<>();
+            for (Linha linha : bloco) {
+                Long id = chaves.resolver(linha);
+                if (id != null) ids.add(id);
+            }
+            Map<Long, Cliente> carregados = new HashMap<>();
+            for (Cliente c : clienteRepository.findAllById(ids)) {
+                carregados.put(c.getId(), c);
+            }
+
+            Set<Cliente> novos = Collections.newSetFromMap(new IdentityHashMap<>());
+            Set<Cliente> alterados = Collections.newSetFromMap(new IdentityHashMap<>());
+
+            for (Linha linha : bloco) {
+                Long id = chaves.resolver(linha);
+                Cliente cliente = id == null ? null : carregados.get(id);
+
+                if (cliente == null) {
+                    cliente = new Cliente();
+                    cliente.setLoja(loja);
+                    cliente.setEmail("");
+                    cliente.setTelefone("");
+                    aplicar(cliente, linha, chaves);
+                    // O id vem da sequence já no persist; o insert sai em lote no commit
+                    clienteRepository.save(cliente);
+                    carregados.put(cliente.getId(), cliente);
+                    novos.add(cliente);
+                    resultado.inseridos++;
+                } else if (aplicar(cliente, linha, chaves) && !novos.contains(cliente) && alterados.add(cliente)) {
+                    // Alterado: o dirty checking grava no commit (em lote)
+                    resultado.atualizados++;
+                } else {
+                    // Sem mudança, ou repetido no próprio arquivo
+                    resultado.ignorados++;
+                }
+
+                chaves.registrar(cliente.getId(),
+                        Cliente.normalizarEmail(cliente.getEmail()), Cliente.normalizarTelefone(cliente.getTelefone()));
+            }
+        });
+        return resultado;
+    }
+
+    /**
+     * Preenche os campos vindos no arquivo; retorna true se algo mudou.
+     * E-mail e telefone só mudam se a chave normalizada mudar (só formatação
+     * diferente não conta); o que já é de outro cliente não é copiado.
+     */
+    private static boolean aplicar(Cliente cliente, Linha linha, Chaves chaves) {
+        boolean mudou = false;
+        if (!linha.nome().isEmpty() && !linha.nome().equals(cliente.getNome())) {
+            cliente.setNome(linha.nome());
+            mudou = true;
+        }
+        if (!linha.email().isEmpty()
+                && !Objects.equals(Cliente.normalizarEmail(linha.email()), Cliente.normalizarEmail(cliente.getEmail()))
+                && chaves.emailLivre(linha.email(), cliente.getId())) {
+            cliente.setEmail(linha.email());
+            mudou = true;
+        }
+        if (!linha.telefone().isEmpty()
+                && !Objects.equals(Cliente.normalizarTelefone(linha.telefone()),
+                        Cliente.normalizarTelefone(cliente.getTelefone()))
+                && chaves.telefoneLivre(linha.telefone(), cliente.getId())) {
+            cliente.setTelefone(linha.telefone());
+            mudou = true;
+        }
+        if (!linha.anotacoes().isEmpty() && !linha.anotacoes().equals(cliente.getAnotacoes())) {
+            cliente.setAnotacoes(linha.anotacoes());
+            mudou = true;
+        }
+        return mudou;
+    }
+}
@@ -0,0 +1,29 @@
+package com.marcahora.service;
+
+import java.util.BitSet;
+
+/**
+ * Mapa de ocupação de um dia com granularidade de minuto.
+ * Cada bit representa um minuto do dia (0 = 00:00, 1439 = 23:59).
+ */
+final class OcupacaoDia {
+
+    static final int MINUTOS_DIA = 24 * 60;
+
+    private final BitSet ocupados = new BitSet(MINUTOS_DIA);
+
+    /** Marca o intervalo [inicio, fim) como ocupado. */
+    void marcar(int inicio, int fim) {
+        int de = Math.max(0, inicio);
+        int ate = Math.min(MINUTOS_DIA, fim);
+        if (de < ate) {
+            ocupados.set(de, ate);
+        }
+    }
+
+    /** Retorna true se nenhum minuto de [inicio, fim) estiver ocupado. */
+    boolean livre(int inicio, int fim) {
+        int proximo = ocupados.nextSetBit(Math.max(0, inicio));
+        return proximo < 0 || proximo >= fim;
+    }
+}
@@ -0,0 +1,229 @@
+package com.marcahora.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reservas temporárias de horário, feitas entre a escolha do horário e a
+ * confirmação do agendamento.
+ *
+ * Ficam só em memória: um índice por token, outro por (loja, dia) para o
+ * cálculo de horários, e uma {@link DelayQueue} esvaziada por uma thread
+ * que remove as vencidas. As leituras também ignoram reservas vencidas que
+ * ainda não foram varridas.
+ *
+ * Criar uma reserva deve acontecer sob a {@link TravaAgenda} do dia, junto
+ * com a verificação de disponibilidade (ver {@link HorarioService#reservar}).
+ * Cada loja tem um limite de reservas ativas, para que pedidos anônimos
+ * não consigam segurar todos os horários dela.
+ */
+@Component
+public class ReservasHorario {
+
+    /** Intervalo [inicio, fim) em minutos do dia, já com duração e buffer */
+    public record Reserva(
+            String token,
+            Long lojaId,
+            LocalDate data,
+            int inicio,
+            int fim,
+            Long profissionalId,
+            long expiraEmNanos) implements Delayed {
+
+        boolean vencida() {
+            return System.nanoTime() - expiraEmNanos >= 0;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiraEmNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed outro) {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), outro.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    private record ChaveDia(Long lojaId, LocalDate data) { }
+
+    private final Map<String, Reserva> porToken = new ConcurrentHashMap<>();
+    private final Map<ChaveDia, Set<Reserva>> porDia = new ConcurrentHashMap<>();
+    private final DelayQueue<Reserva> expiracoes = new DelayQueue<>();
+    private final Map<Long, Integer> ativasPorLoja = new ConcurrentHashMap<>();
+
+    private final EventosAgenda eventosAgenda;
+    private final Duration duracao;
+    private final int maxAtivas;
+    private final int maxPorLoja;
+    private final Thread varredura;
+
+    public ReservasHorario(EventosAgenda eventosAgenda,
+                           @Value("${marcahora.reservas.minutos:5}") long minutos,
+                           @Value("${marcahora.reservas.max-ativas:50000}") int maxAtivas,
+                           @Value("${marcahora.reservas.max-por-loja:100}") int maxPorLoja) {
+        this.eventosAgenda = eventosAgenda;
+        this.duracao = Duration.ofMinutes(minutos);
+        this.maxAtivas = maxAtivas;
+        this.maxPorLoja = maxPorLoja;
+
+        this.varredura = new Thread(this::varrerVencidas, "reservas-horario");
+        this.varredura.setDaemon(true);
+        this.varredura.start();
+    }
+
+    public Duration duracao() {
+        return duracao;
+    }
+
+    // ============================
+    // CRIAR / CONSUMIR / LIBERAR
+    // ============================
+
+    /** Registra a reserva; retorna null se o limite de reservas ativas (geral ou da loja) foi atingido */
+    Reserva criar(Long lojaId, LocalDate data, int inicio, int fim, Long profissionalId) {
+        if (porToken.size() >= maxAtivas) {
+            return null;
+        }
+
+        // Conta e confere no mesmo compute: dias diferentes da loja reservam em paralelo
+        boolean[] dentroDoLimite = {false};
+        ativasPorLoja.compute(lojaId, (k, ativas) -> {
+            int n = ativas == null ? 0 : ativas;
+            if (n >= maxPorLoja) return ativas;
+            dentroDoLimite[0] = true;
+            return n + 1;
+        });
+        if (!dentroDoLimite[0]) {
+            return null;
+        }
+
+        Reserva reserva = new Reserva(UUID.randomUUID().toString(), lojaId, data, inicio, fim,
+                profissionalId, System.nanoTime() + duracao.toNanos());
+
+        porToken.put(reserva.token(), reserva);
+        porDia.computeIfAbsent(new ChaveDia(lojaId, data), k -> ConcurrentHashMap.newKeySet()).add(reserva);
+        expiracoes.add(reserva);
+
+        eventosAgenda.publicar(lojaId, data, "ocupado", inicio, fim, profissionalId);
+        return reserva;
+    }
+
+    /** Reserva ativa do token; null se não existe ou já venceu */
+    public Reserva buscar(String token) {
+        if (token == null) return null;
+
+        Reserva reserva = porToken.get(token);
+        return reserva == null || reserva.vencida() ? null : reserva;
+    }
+
+    /**
+     * Remove a reserva depois que o agendamento dela foi gravado. Não publica
+     * nada: o horário continua ocupado, agora pelo agendamento.
+     */
+    public void consumir(Reserva reserva) {
+        if (reserva != null) {
+            remover(reserva);
+        }
+    }
+
+    /** Desistência: remove a reserva e avisa que o horário voltou a ficar livre */
+    public boolean liberar(String token) {
+        Reserva reserva = token == null ? null : porToken.get(token);
+        if (reserva == null || !remover(reserva)) return false;
+
+        eventosAgenda.publicar(reserva.lojaId(), reserva.data(), "liberado",
+                reserva.inicio(), reserva.fim(), reserva.profissionalId());
+        return true;
+    }
+
+    /** false se a reserva já tinha saído (consumida, liberada ou vencida) */
+    private boolean remover(Reserva reserva) {
+        if (!porToken.remove(reserva.token(), reserva)) return false;
+
+        expiracoes.remove(reserva);
+        porDia.computeIfPresent(new ChaveDia(reserva.lojaId(), reserva.data()), (k, reservas) -> {
+            reservas.remove(reserva);
+            return reservas.isEmpty() ? null : reservas;
+        });
+        ativasPorLoja.computeIfPresent(reserva.lojaId(), (k, ativas) -> ativas > 1 ? ativas - 1 : null);
+        return true;
+    }
+
+    // ============================
+    // LEITURA
+    // ============================
+
+    /**
+     * Ocupação das reservas ativas do dia, ou null se não há nenhuma.
+     * Com profissional, considera só as reservas dele (mesmo critério da
+     * busca de agendamentos); sem profissional, considera todas.
+     */
+    OcupacaoDia ocupacao(Long lojaId, LocalDate data, Long profissionalId) {
+        return ocupacao(lojaId, data, profissionalId, null);
+    }
+
+    /** Idem, sem contar a reserva {@code ignorada} (a do próprio cliente, ao confirmar) */
+    OcupacaoDia ocupacao(Long lojaId, LocalDate data, Long profissionalId, Reserva ignorada) {
+        Set<Reserva> reservas = porDia.get(new ChaveDia(lojaId, data));
+        if (reservas == null) return null;
+
+        OcupacaoDia ocupacao = null;
+        for (Reserva r : reservas) {
+            if (r.vencida() || r == ignorada
+                    || (profissionalId != null && !profissionalId.equals(r.profissionalId()))) {
+                continue;
+            }
+            if (ocupacao == null) {
+                ocupacao = new OcupacaoDia();
+            }
+            ocupacao.marcar(r.inicio(), r.fim());
+        }
+        return ocupacao;
+    }
+
+    // ============================
+    // EXPIRAÇÃO
+    // ============================
+
+    private void varrerVencidas() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Reserva vencida = expiracoes.take();
+                // Só avisa se ainda estava ativa (não foi consumida nem liberada)
+                if (remover(vencida)) {
+                    eventosAgenda.publicar(vencida.lojaId(), vencida.data(), "liberado",
+                            vencida.inicio(), vencida.fim(), vencida.profissionalId());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @PreDestroy
+    void encerrar() {
+        varredura.interrupt();
+    }
+
+    // ============================
+    // ESTATÍSTICAS
+    // ============================
+    public Map<String, Object> estatisticas() {
+        return Map.of(
+                "ativas", porToken.size(),
+                "lojas", ativasPorLoja.size(),
+                "dias", porDia.size());
+    }
+}
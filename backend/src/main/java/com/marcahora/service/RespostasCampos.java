@@ -0,0 +1,147 @@
+package com.marcahora.service;
+
+import com.marcahora.dto.RespostaCampoResumo;
+import com.marcahora.model.CampoPersonalizado;
+import com.marcahora.repository.CampoPersonalizadoRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Respostas aos campos personalizados da loja.
+ *
+ * No agendamento público as respostas são conferidas com as definições dos
+ * campos (lidas do cache de consultas) antes da trava do dia, e gravadas
+ * com um batch JDBC na mesma transação do agendamento. A agenda lê as
+ * respostas de um período numa consulta só, incluindo o arquivo quando o
+ * período chega nele.
+ */
+@Service
+public class RespostasCampos {
+
+    private static final int MAX_RESPOSTA = 1000;
+
+    private static final String INSERIR =
+            "insert into resposta_campo_personalizado (agendamento_id, campo_id, resposta) values (?, ?, ?)";
+
+    private static final String SELECT_PERIODO =
+            "select a.id, c.id, c.pergunta, r.resposta from %s r "
+            + "join %s a on a.id = r.agendamento_id "
+            + "join campo_personalizado c on c.id = r.campo_id "
+            + "where a.loja_id = ? and a.data_hora between ? and ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CampoPersonalizadoRepository campoPersonalizadoRepository;
+    private final ArquivamentoAgendamentos arquivamentoAgendamentos;
+
+    public RespostasCampos(JdbcTemplate jdbcTemplate,
+                           CampoPersonalizadoRepository campoPersonalizadoRepository,
+                           ArquivamentoAgendamentos arquivamentoAgendamentos) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.campoPersonalizadoRepository = campoPersonalizadoRepository;
+        this.arquivamentoAgendamentos = arquivamentoAgendamentos;
+    }
+
+    // ============================
+    // VALIDAÇÃO
+    // ============================
+
+    /**
+     * Confere as respostas (campo → texto) com os campos da loja e devolve só
+     * as preenchidas, já aparadas. Lança IllegalArgumentException com a
+     * mensagem para o cliente.
+     */
+    public Map<Long, String> validar(Long lojaId, Map<Long, String> respostas) {
+        Map<Long, CampoPersonalizado> campos = new LinkedHashMap<>();
+        for (CampoPersonalizado campo : campoPersonalizadoRepository.findByLojaId(lojaId)) {
+            campos.put(campo.getId(), campo);
+        }
+
+        Map<Long, String> validas = new LinkedHashMap<>();
+        for (Map.Entry<Long, String> e : respostas.entrySet()) {
+            CampoPersonalizado campo = campos.get(e.getKey());
+            if (campo == null) {
+                throw new IllegalArgumentException("Campo personalizado inválido.");
+            }
+            String resposta = e.getValue() == null ? "" : e.getValue().trim();
+            if (resposta.isEmpty()) continue;
+
+            if (resposta.length() > MAX_RESPOSTA) {
+                throw new IllegalArgumentException("Resposta muito longa: " + campo.getPergunta());
+            }
+            if ("numero".equals(campo.getTipoResposta()) && !numero(resposta)) {
+                throw new IllegalArgumentException("Resposta deve ser um número: " + campo.getPergunta());
+            }
+            if ("sim_nao".equals(campo.getTipoResposta())
+                    && !resposta.equalsIgnoreCase("Sim") && !resposta.equalsIgnoreCase("Não")) {
+                throw new IllegalArgumentException("Responda Sim ou Não: " + campo.getPergunta());
+            }
+            validas.put(campo.getId(), resposta);
+        }
+
+        for (CampoPersonalizado campo : campos.values()) {
+            if (Boolean.TRUE.equals(campo.getObrigatorio()) && !validas.containsKey(campo.getId())) {
+                throw new IllegalArgumentException("Resposta obrigatória: " + campo.getPergunta());
+            }
+        }
+        return validas;
+    }
+
+    private static boolean numero(String valor) {
+        try {
+            new BigDecimal(valor.replace(',', '.'));
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    // ============================
+    // GRAVAÇÃO
+    // ============================
+
+    /** Chamar na transação que grava o agendamento (já com id) */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void gravar(Long agendamentoId, Map<Long, String> respostas) {
+        if (respostas.isEmpty()) return;
+
+        List<Object[]> linhas = new ArrayList<>(respostas.size());
+        respostas.forEach((campoId, resposta) -> linhas.add(new Object[] { agendamentoId, campoId, resposta }));
+        jdbcTemplate.batchUpdate(INSERIR, linhas);
+    }
+
+    /** Remove o campo e as respostas dadas a ele (também as arquivadas) */
+    @Transactional
+    public void excluirCampo(CampoPersonalizado campo) {
+        jdbcTemplate.update("delete from resposta_campo_personalizado where campo_id = ?", campo.getId());
+        jdbcTemplate.update("delete from resposta_campo_personalizado_arquivo where campo_id = ?", campo.getId());
+        campoPersonalizadoRepository.delete(campo);
+    }
+
+    // ============================
+    // LEITURA
+    // ============================
+
+    /** Respostas dos agendamentos da loja no período, ordenadas por agendamento e campo */
+    public List<RespostaCampoResumo> listarPorPeriodo(Long lojaId, LocalDateTime inicio, LocalDateTime fim) {
+        String sql = String.format(SELECT_PERIODO, "resposta_campo_personalizado", "agendamento");
+        List<Object> parametros = new ArrayList<>(List.of(lojaId, inicio, fim));
+        if (arquivamentoAgendamentos.alcancaArquivo(inicio)) {
+            sql += " union all "
+                    + String.format(SELECT_PERIODO, "resposta_campo_personalizado_arquivo", "agendamento_arquivo");
+            parametros.addAll(List.of(lojaId, inicio, fim));
+        }
+        sql += " order by 1, 2";
+
+        return jdbcTemplate.query(sql, (rs, i) -> new RespostaCampoResumo(
+                rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getString(4)), parametros.toArray());
+    }
+}
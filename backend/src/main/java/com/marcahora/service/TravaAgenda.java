@@ -0,0 +1,41 @@
+package com.marcahora.service;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Travas por listras para serializar "verificar horário + salvar agendamento"
+ * de um mesmo dia da loja, sem uma trava global.
+ *
+ * A chave é (loja, dia): um agendamento sem profissional disputa o horário com
+ * todos os profissionais, então incluir o profissional na chave deixaria
+ * passar conflitos. Lojas e dias diferentes caem, em geral, em listras
+ * diferentes e seguem em paralelo.
+ */
+@Component
+public class TravaAgenda {
+
+    private static final int LISTRAS = 256; // potência de 2
+
+    private final ReentrantLock[] travas = new ReentrantLock[LISTRAS];
+
+    public TravaAgenda() {
+        for (int i = 0; i < LISTRAS; i++) {
+            travas[i] = new ReentrantLock();
+        }
+    }
+
+    /** Trava que protege o dia da loja */
+    public Lock doDia(Long lojaId, LocalDate data) {
+        return travas[listra(lojaId, data)];
+    }
+
+    private int listra(Long lojaId, LocalDate data) {
+        int h = 31 * lojaId.hashCode() + data.hashCode();
+        h ^= (h >>> 16);
+        return h & (LISTRAS - 1);
+    }
+}
@@ -0,0 +1,81 @@
+package com.marcahora.service;
+
+import com.marcahora.dto.VersaoLoja;
+import com.marcahora.model.Loja;
+import com.marcahora.repository.LojaRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+
+/**
+ * Versão da configuração de cada loja (dados, serviços, profissionais e
+ * campos personalizados) e respostas condicionais a partir dela.
+ *
+ * Toda escrita nesses dados chama {@link #alterada} na mesma transação, depois
+ * de gravar: a versão só muda se a escrita for commitada, e as duas ficam
+ * visíveis juntas (nenhuma leitura guarda o dado novo com o ETag antigo). As
+ * leituras chamam {@link #naoModificada} antes de carregar qualquer
+ * entidade: se o If-None-Match (ou If-Modified-Since) do cliente ainda vale,
+ * a resposta é 304 só com a consulta da versão. O ETag é forte e igual para
+ * todas as URLs da loja; cada URL é guardada separadamente no cache.
+ *
+ * Cache-Control no-cache: navegador e CDN guardam a resposta, mas
+ * revalidam antes de usar.
+ */
+@Service
+public class VersoesLoja {
+
+    public static final CacheControl PUBLICO = CacheControl.noCache().cachePublic();
+    public static final CacheControl PRIVADO = CacheControl.noCache().cachePrivate();
+
+    private final LojaRepository lojaRepository;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public VersoesLoja(LojaRepository lojaRepository, EntityManagerFactory entityManagerFactory) {
+        this.lojaRepository = lojaRepository;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Chamar depois de gravar qualquer dado que aparece nas leituras
+     * condicionais, na mesma transação. Depois do commit tira só esta loja do
+     * cache de segundo nível (antes dele, outra leitura guardaria a versão antiga).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void alterada(Long lojaId) {
+        lojaRepository.incrementarVersao(lojaId, LocalDateTime.now());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                entityManagerFactory.getCache().evict(Loja.class, lojaId);
+            }
+        });
+    }
+
+    /**
+     * true se já respondeu 304 (o controller retorna null); senão deixa
+     * ETag, Last-Modified e Cache-Control na resposta e segue
+     */
+    public boolean naoModificada(Long lojaId, ServletWebRequest request, CacheControl cacheControl) {
+        Optional<VersaoLoja> opt = lojaRepository.buscarVersao(lojaId);
+        if (opt.isEmpty()) return false;
+
+        // Com Cache-Control definido, o Spring Security não põe o no-store padrão
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        }
+        VersaoLoja versao = opt.get();
+        long ultimaAlteracao = versao.atualizadoEm().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return request.checkNotModified("\"" + versao.lojaId() + "-" + versao.versao() + "\"", ultimaAlteracao);
+    }
+}
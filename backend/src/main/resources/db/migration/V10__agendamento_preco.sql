@@ -0,0 +1,11 @@
+-- Preço do serviço gravado no agendamento, no momento da criação: os totais
+-- diários e o dashboard não mudam quando o serviço é reajustado depois.
+-- Agendamentos já existentes ficam com o preço atual do serviço.
+alter table agendamento add column preco numeric(38,2);
+alter table agendamento_arquivo add column preco numeric(38,2);
+
+update agendamento a set preco = (select s.preco from servico s where s.id = a.servico_id)
+where a.servico_id is not null;
+
+update agendamento_arquivo a set preco = (select s.preco from servico s where s.id = a.servico_id)
+where a.servico_id is not null;
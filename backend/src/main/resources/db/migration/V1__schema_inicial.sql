@@ -0,0 +1,108 @@
+-- Esquema inicial, equivalente ao que o Hibernate gerava com ddl-auto=update
+
+create table loja (
+    id bigint generated by default as identity,
+    nome varchar(255),
+    email varchar(255),
+    telefone varchar(255),
+    tipo_negocio varchar(255),
+    logo_url varchar(255),
+    cor_primaria varchar(255),
+    cor_secundaria varchar(255),
+    ativa boolean,
+    usa_servicos boolean,
+    usa_profissionais boolean,
+    horario_abertura varchar(255),
+    horario_fechamento varchar(255),
+    dias_funcionamento varchar(255),
+    intervalo_atendimento integer,
+    tempo_buffer_minutos integer,
+    mostrar_nome boolean,
+    mostrar_email boolean,
+    mostrar_telefone boolean,
+    mostrar_observacoes boolean,
+    obrigar_nome boolean,
+    obrigar_email boolean,
+    obrigar_telefone boolean,
+    primary key (id)
+);
+
+create table usuario (
+    id bigint generated by default as identity,
+    loja_id bigint,
+    nome varchar(255),
+    email varchar(255),
+    senha varchar(255),
+    primary key (id),
+    constraint fk_usuario_loja foreign key (loja_id) references loja
+);
+
+create table cliente (
+    id bigint generated by default as identity,
+    loja_id bigint,
+    nome varchar(255),
+    email varchar(255),
+    telefone varchar(255),
+    anotacoes varchar(1000),
+    criado_em timestamp(6),
+    primary key (id),
+    constraint fk_cliente_loja foreign key (loja_id) references loja
+);
+
+create table servico (
+    id bigint generated by default as identity,
+    loja_id bigint,
+    nome varchar(255),
+    descricao varchar(255),
+    duracao_minutos integer,
+    preco numeric(38,2),
+    primary key (id),
+    constraint fk_servico_loja foreign key (loja_id) references loja
+);
+
+create table profissional (
+    id bigint generated by default as identity,
+    loja_id bigint not null,
+    nome varchar(255) not null,
+    email varchar(255),
+    telefone varchar(255),
+    ativo boolean,
+    primary key (id),
+    constraint fk_profissional_loja foreign key (loja_id) references loja
+);
+
+create table agendamento (
+    id bigint generated by default as identity,
+    loja_id bigint,
+    cliente_id bigint,
+    servico_id bigint,
+    profissional_id bigint,
+    data_hora timestamp(6),
+    status varchar(20),
+    observacoes varchar(500),
+    primary key (id),
+    constraint fk_agendamento_loja foreign key (loja_id) references loja,
+    constraint fk_agendamento_cliente foreign key (cliente_id) references cliente,
+    constraint fk_agendamento_servico foreign key (servico_id) references servico,
+    constraint fk_agendamento_profissional foreign key (profissional_id) references profissional
+);
+
+create table campo_personalizado (
+    id bigint generated by default as identity,
+    loja_id bigint not null,
+    pergunta varchar(255) not null,
+    tipo_resposta varchar(50) not null,
+    obrigatorio boolean,
+    primary key (id),
+    constraint fk_campo_personalizado_loja foreign key (loja_id) references loja
+);
+
+create table resposta_campo_personalizado (
+    id bigint generated by default as identity,
+    agendamento_id bigint not null,
+    campo_id bigint not null,
+    resposta varchar(1000),
+    primary key (id),
+    constraint fk_resposta_agendamento foreign key (agendamento_id) references agendamento,
+    constraint fk_resposta_campo foreign key (campo_id) references campo_personalizado
+);
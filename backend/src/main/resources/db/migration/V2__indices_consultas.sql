@@ -0,0 +1,11 @@
+-- Índices compostos para as consultas mais frequentes
+
+-- AgendamentoRepository.findByLojaIdAndDataHoraBetween (horários, agenda do dia)
+create index idx_agendamento_loja_data on agendamento (loja_id, data_hora);
+
+-- AgendamentoRepository.findByLojaIdAndProfissionalIdAndDataHoraBetween (horários por profissional)
+create index idx_agendamento_loja_prof_data on agendamento (loja_id, profissional_id, data_hora);
+
+-- ClienteRepository.findByEmailAndLojaId / findByTelefoneAndLojaId (agendamento público)
+create index idx_cliente_loja_email on cliente (loja_id, email);
+create index idx_cliente_loja_telefone on cliente (loja_id, telefone);
@@ -0,0 +1,2 @@
+-- Paginação por cursor da lista de clientes: where loja_id = ? and id > ? order by id
+create index idx_cliente_loja_id on cliente (loja_id, id);
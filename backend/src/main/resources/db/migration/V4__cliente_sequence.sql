@@ -0,0 +1,7 @@
+-- Cliente passa de IDENTITY para sequence (blocos de 50), permitindo que o
+-- Hibernate agrupe inserts em lote (importação de clientes).
+-- O primeiro bloco entregue pela sequence é (valor - 49 .. valor), por isso
+-- ela recomeça 50 acima do maior id existente.
+create sequence cliente_seq start with 50 increment by 50;
+alter sequence cliente_seq restart with (select coalesce(max(id), 0) + 50 from cliente);
+alter table cliente alter column id drop identity;
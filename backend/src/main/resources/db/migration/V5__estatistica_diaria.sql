@@ -0,0 +1,37 @@
+-- Totais diários de agendamentos por (loja, dia, profissional, serviço),
+-- mantidos junto com cada criação e mudança de status (EstatisticasDiarias).
+-- Sem profissional / sem serviço: id 0 (a chave única não aceita null).
+create table estatistica_diaria (
+    id bigint generated by default as identity,
+    loja_id bigint not null,
+    data date not null,
+    profissional_id bigint not null,
+    servico_id bigint not null,
+    quantidade integer not null,
+    agendados integer not null,
+    confirmados integer not null,
+    concluidos integer not null,
+    cancelados integer not null,
+    faturamento numeric(38,2) not null,
+    primary key (id),
+    constraint fk_estatistica_diaria_loja foreign key (loja_id) references loja,
+    constraint uk_estatistica_diaria unique (loja_id, data, profissional_id, servico_id)
+);
+
+-- Carga inicial a partir dos agendamentos existentes
+insert into estatistica_diaria (loja_id, data, profissional_id, servico_id, quantidade,
+                                agendados, confirmados, concluidos, cancelados, faturamento)
+select a.loja_id,
+       cast(a.data_hora as date),
+       coalesce(a.profissional_id, 0),
+       coalesce(a.servico_id, 0),
+       count(*),
+       sum(case when a.status is null or lower(a.status) not in ('confirmado', 'concluido', 'cancelado') then 1 else 0 end),
+       sum(case when lower(a.status) = 'confirmado' then 1 else 0 end),
+       sum(case when lower(a.status) = 'concluido' then 1 else 0 end),
+       sum(case when lower(a.status) = 'cancelado' then 1 else 0 end),
+       coalesce(sum(case when a.status is null or lower(a.status) <> 'cancelado' then s.preco end), 0)
+from agendamento a
+left join servico s on s.id = a.servico_id
+where a.loja_id is not null and a.data_hora is not null
+group by a.loja_id, cast(a.data_hora as date), coalesce(a.profissional_id, 0), coalesce(a.servico_id, 0);
@@ -0,0 +1,35 @@
+-- Arquivo de agendamentos antigos (ArquivamentoAgendamentos): mesmo formato
+-- das tabelas quentes, com os ids originais. A tabela agendamento fica só
+-- com o período recente, usado pela agenda e pelo cálculo de horários.
+create table agendamento_arquivo (
+    id bigint not null,
+    loja_id bigint,
+    cliente_id bigint,
+    servico_id bigint,
+    profissional_id bigint,
+    data_hora timestamp(6),
+    status varchar(20),
+    observacoes varchar(500),
+    primary key (id),
+    constraint fk_agendamento_arquivo_loja foreign key (loja_id) references loja,
+    constraint fk_agendamento_arquivo_cliente foreign key (cliente_id) references cliente,
+    constraint fk_agendamento_arquivo_servico foreign key (servico_id) references servico,
+    constraint fk_agendamento_arquivo_profissional foreign key (profissional_id) references profissional
+);
+
+create index idx_agendamento_arquivo_loja_data on agendamento_arquivo (loja_id, data_hora);
+
+create table resposta_campo_personalizado_arquivo (
+    id bigint not null,
+    agendamento_id bigint not null,
+    campo_id bigint not null,
+    resposta varchar(1000),
+    primary key (id),
+    constraint fk_resposta_arquivo_agendamento foreign key (agendamento_id) references agendamento_arquivo,
+    constraint fk_resposta_arquivo_campo foreign key (campo_id) references campo_personalizado
+);
+
+create index idx_resposta_arquivo_agendamento on resposta_campo_personalizado_arquivo (agendamento_id);
+
+-- Seleção dos lotes a arquivar: where data_hora < ? order by id
+create index idx_agendamento_data on agendamento (data_hora);
@@ -0,0 +1,2 @@
+-- Respostas dos agendamentos de um período: join por agendamento_id
+create index idx_resposta_agendamento on resposta_campo_personalizado (agendamento_id);
@@ -0,0 +1,33 @@
+-- Chaves de contato normalizadas do cliente: e-mail em minúsculas e telefone
+-- só com dígitos (sem o 55 do país), únicas por loja. O agendamento público
+-- procura o cliente pelas duas numa consulta só.
+alter table cliente add column email_normalizado varchar(255);
+alter table cliente add column telefone_normalizado varchar(255);
+
+update cliente set email_normalizado = lower(trim(email))
+where email is not null and trim(email) <> '';
+
+update cliente set telefone_normalizado = regexp_replace(telefone, '[^0-9]', '')
+where telefone is not null;
+update cliente set telefone_normalizado = substring(telefone_normalizado, 3)
+where length(telefone_normalizado) >= 12 and left(telefone_normalizado, 2) = '55';
+update cliente set telefone_normalizado = null where telefone_normalizado = '';
+
+-- Duplicados já gravados: a chave fica só com o cliente mais antigo; os
+-- outros continuam cadastrados (com seus agendamentos), mas não são mais
+-- encontrados pelo contato repetido
+update cliente c set email_normalizado = null
+where email_normalizado is not null and exists (
+    select 1 from cliente o
+    where o.loja_id = c.loja_id and o.email_normalizado = c.email_normalizado and o.id < c.id);
+
+update cliente c set telefone_normalizado = null
+where telefone_normalizado is not null and exists (
+    select 1 from cliente o
+    where o.loja_id = c.loja_id and o.telefone_normalizado = c.telefone_normalizado and o.id < c.id);
+
+-- Substituem os índices por email/telefone brutos
+drop index idx_cliente_loja_email;
+drop index idx_cliente_loja_telefone;
+create unique index uk_cliente_loja_email on cliente (loja_id, email_normalizado);
+create unique index uk_cliente_loja_telefone on cliente (loja_id, telefone_normalizado);
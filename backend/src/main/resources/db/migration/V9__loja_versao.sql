@@ -0,0 +1,5 @@
+-- Versão da configuração da loja: sobe a cada alteração da loja, dos seus
+-- serviços, profissionais ou campos personalizados. As leituras respondem
+-- com ETag / Last-Modified a partir daqui e devolvem 304 sem montar nada.
+alter table loja add column versao bigint default 0 not null;
+alter table loja add column atualizado_em timestamp default current_timestamp not null;
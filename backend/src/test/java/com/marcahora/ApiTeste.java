@@ -0,0 +1,166 @@
+package com.marcahora;
+
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Chamadas à API usadas para montar cenários nos testes: cada teste cria
+ * a sua loja, então os testes não dependem uns dos outros nem da ordem.
+ */
+public class ApiTeste {
+
+    private static final AtomicLong TELEFONES = new AtomicLong(11_900_000_000L);
+
+    private final TestRestTemplate rest;
+
+    public ApiTeste(TestRestTemplate rest) {
+        this.rest = rest;
+    }
+
+    /** Loja nova com serviços, aberta das 09:00 às 18:00 todos os dias */
+    public Long criarLoja() {
+        Map<String, Object> cadastro = new LinkedHashMap<>();
+        cadastro.put("nome", "Loja Teste");
+        cadastro.put("email", "loja-" + UUID.randomUUID() + "@teste.com");
+        cadastro.put("senha", "123456");
+        cadastro.put("usaServicos", true);
+        ResponseEntity<Map> resp = rest.postForEntity("/api/cadastro/loja", cadastro, Map.class);
+        assertThat(resp.getStatusCode().is2xxSuccessful()).isTrue();
+        Long lojaId = ((Number) resp.getBody().get("lojaId")).longValue();
+
+        ResponseEntity<String> horarios = rest.exchange("/api/configuracoes/" + lojaId + "/horarios", HttpMethod.PUT,
+                new HttpEntity<>(Map.of("dias", List.of("1", "2", "3", "4", "5", "6", "7"))), String.class);
+        assertThat(horarios.getStatusCode().is2xxSuccessful()).isTrue();
+        return lojaId;
+    }
+
+    public Long criarServico(Long lojaId, String nome, int duracaoMinutos, BigDecimal preco) {
+        Map<String, Object> servico = new LinkedHashMap<>();
+        servico.put("nome", nome);
+        servico.put("duracaoMinutos", duracaoMinutos);
+        servico.put("preco", preco);
+        ResponseEntity<Map> resp = rest.postForEntity("/api/servicos/loja/" + lojaId, servico, Map.class);
+        assertThat(resp.getStatusCode().is2xxSuccessful()).isTrue();
+        return ((Number) resp.getBody().get("id")).longValue();
+    }
+
+    public void atualizarServico(Long servicoId, String nome, int duracaoMinutos, BigDecimal preco) {
+        Map<String, Object> servico = new LinkedHashMap<>();
+        servico.put("nome", nome);
+        servico.put("duracaoMinutos", duracaoMinutos);
+        servico.put("preco", preco);
+        ResponseEntity<String> resp = rest.exchange("/api/servicos/" + servicoId, HttpMethod.PUT,
+                new HttpEntity<>(servico), String.class);
+        assertThat(resp.getStatusCode().is2xxSuccessful()).isTrue();
+    }
+
+    public void alterarStatus(Long agendamentoId, String status) {
+        ResponseEntity<String> resp = rest.exchange("/api/agendamentos/" + agendamentoId + "/status", HttpMethod.PUT,
+                new HttpEntity<>(Map.of("status", status)), String.class);
+        assertThat(resp.getStatusCode().is2xxSuccessful()).isTrue();
+    }
+
+    /** Relatório de totais diários agrupado por dia */
+    public Map<String, Object> relatorio(Long lojaId, LocalDate inicio, LocalDate fim) {
+        ResponseEntity<Map> resp = rest.getForEntity("/api/estatisticas/loja/{l}?inicio={i}&fim={f}",
+                Map.class, lojaId, inicio, fim);
+        assertThat(resp.getStatusCode().is2xxSuccessful()).isTrue();
+        return resp.getBody();
+    }
+
+    /** Agendamento pelo endpoint público, com um cliente novo; erros voltam como texto */
+    public ResponseEntity<String> agendar(Long lojaId, Long servicoId, LocalDateTime dataHora) {
+        return agendar(lojaId, servicoId, dataHora, null);
+    }
+
+    public ResponseEntity<String> agendar(Long lojaId, Long servicoId, LocalDateTime dataHora, String reservaToken) {
+        return rest.postForEntity("/public/agendamentos/criar",
+                agendamento(lojaId, servicoId, dataHora, reservaToken), String.class);
+    }
+
+    public Long agendarComSucesso(Long lojaId, Long servicoId, LocalDateTime dataHora) {
+        return agendarComSucesso(lojaId, servicoId, dataHora, null);
+    }
+
+    public Long agendarComSucesso(Long lojaId, Long servicoId, LocalDateTime dataHora, String reservaToken) {
+        ResponseEntity<Map> resp = rest.postForEntity("/public/agendamentos/criar",
+                agendamento(lojaId, servicoId, dataHora, reservaToken), Map.class);
+        assertThat(resp.getStatusCode().is2xxSuccessful()).as("agendamento: %s", resp.getBody()).isTrue();
+        return ((Number) resp.getBody().get("agendamentoId")).longValue();
+    }
+
+    private static Map<String, Object> agendamento(Long lojaId, Long servicoId, LocalDateTime dataHora,
+                                                   String reservaToken) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("lojaId", lojaId);
+        body.put("servicoId", servicoId);
+        body.put("dataHora", dataHora.toString());
+        body.put("nome", "Cliente Teste");
+        body.put("telefone", String.valueOf(TELEFONES.incrementAndGet()));
+        if (reservaToken != null) {
+            body.put("reservaToken", reservaToken);
+        }
+        return body;
+    }
+
+    public Long criarCliente(Long lojaId) {
+        Map<String, Object> cliente = new LinkedHashMap<>();
+        cliente.put("nome", "Cliente Painel");
+        cliente.put("telefone", String.valueOf(TELEFONES.incrementAndGet()));
+        ResponseEntity<Map> resp = rest.postForEntity("/api/clientes/loja/" + lojaId, cliente, Map.class);
+        assertThat(resp.getStatusCode().is2xxSuccessful()).isTrue();
+        return ((Number) resp.getBody().get("id")).longValue();
+    }
+
+    /** Agendamento feito pela loja no painel; erros voltam como texto */
+    public ResponseEntity<String> agendarPeloPainel(Long lojaId, Long clienteId, Long servicoId,
+                                                    LocalDateTime dataHora) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("clienteId", clienteId);
+        body.put("servicoId", servicoId);
+        body.put("dataHora", dataHora.toString());
+        return rest.postForEntity("/api/agendamentos/loja/" + lojaId, body, String.class);
+    }
+
+    /** Reserva temporária do horário; erros voltam como texto */
+    public ResponseEntity<String> reservar(Long lojaId, Long servicoId, LocalDateTime dataHora) {
+        return rest.postForEntity("/public/agendamentos/reservas", reserva(lojaId, servicoId, dataHora), String.class);
+    }
+
+    /** Token da reserva */
+    public String reservarComSucesso(Long lojaId, Long servicoId, LocalDateTime dataHora) {
+        ResponseEntity<Map> resp = rest.postForEntity("/public/agendamentos/reservas",
+                reserva(lojaId, servicoId, dataHora), Map.class);
+        assertThat(resp.getStatusCode().is2xxSuccessful()).as("reserva: %s", resp.getBody()).isTrue();
+        return (String) resp.getBody().get("reservaToken");
+    }
+
+    private static Map<String, Object> reserva(Long lojaId, Long servicoId, LocalDateTime dataHora) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("lojaId", lojaId);
+        body.put("servicoId", servicoId);
+        body.put("dataHora", dataHora.toString());
+        return body;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<String> horarios(Long lojaId, Long servicoId, LocalDateTime dia) {
+        ResponseEntity<Map> resp = rest.getForEntity("/public/agendamentos/horarios?lojaId={l}&servicoId={s}&data={d}",
+                Map.class, lojaId, servicoId, dia.toLocalDate());
+        assertThat(resp.getStatusCode().is2xxSuccessful()).isTrue();
+        return (List<String>) resp.getBody().get("horarios");
+    }
+}
@@ -0,0 +1,140 @@
+package com.marcahora.config;
+
+import com.marcahora.ApiTeste;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Primário + réplica com dois H2 (perfil replica-local). A cópia automática
+ * só roda na subida; cada teste sincroniza quando quer, então "réplica
+ * atrasada" é o estado normal entre uma escrita e {@link #sincronizar()}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "marcahora.replica.sincronizar-ms=3600000")
+@ActiveProfiles("replica-local")
+class ReplicaLocalTest {
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private RoteamentoDataSource roteamento;
+
+    @Autowired
+    private ReplicaLocalH2 replicaLocal;
+
+    @Autowired
+    @Qualifier("dataSourcePrimario")
+    private DataSource primario;
+
+    @Autowired
+    @Qualifier("dataSourceReplica")
+    private DataSource replica;
+
+    private ApiTeste api;
+
+
+    @BeforeEach
+    void replicaCarregada() throws InterruptedException {
+        api = new ApiTeste(rest);
+        // A primeira carga roda no agendador, logo depois da subida
+        for (int i = 0; i < 100 && !Boolean.TRUE.equals(roteamento.estatisticas().get("replicaDisponivel")); i++) {
+            Thread.sleep(100);
+        }
+        assertThat(roteamento.estatisticas().get("replicaDisponivel")).isEqualTo(true);
+    }
+
+    @Test
+    void escritasVaoParaOPrimario() {
+        long antes = conexoesReplica();
+        Long lojaId = api.criarLoja();
+
+        assertThat(contar(primario, lojaId)).isEqualTo(1);
+        assertThat(contar(replica, lojaId)).isZero();
+        assertThat(conexoesReplica()).isEqualTo(antes);
+    }
+
+    @Test
+    void leiturasSoLeituraVaoParaAReplica() {
+        Long lojaId = api.criarLoja();
+        Long servicoId = api.criarServico(lojaId, "Corte", 30, new BigDecimal("50.00"));
+        sincronizar();
+
+        renomear("/api/configuracoes/" + lojaId + "/info", Map.of("nome", "Nome Novo"));
+        renomear("/api/servicos/" + servicoId, Map.of("nome", "Corte Novo", "duracaoMinutos", 30));
+
+        long antes = conexoesReplica();
+        assertThat(nomes(lojaId)).containsExactly("Loja Teste", "Corte");
+        assertThat(conexoesReplica()).isGreaterThan(antes);
+
+        // A leitura atrasada não ficou no cache de entidades nem no de consultas
+        sincronizar();
+        assertThat(nomes(lojaId)).containsExactly("Nome Novo", "Corte Novo");
+    }
+
+    @Test
+    void leituraLogoAposEscritaVemDoPrimario() {
+        Long lojaId = api.criarLoja();
+        Long servicoId = api.criarServico(lojaId, "Corte", 30, new BigDecimal("50.00"));
+        sincronizar();
+
+        LocalDateTime horario = LocalDate.now().plusDays(3).atTime(LocalTime.of(10, 0));
+        assertThat(api.horarios(lojaId, servicoId, horario)).contains("10:00");
+
+        api.agendarComSucesso(lojaId, servicoId, horario);
+
+        // A réplica ainda não tem o agendamento, mas os horários já não oferecem 10:00
+        assertThat(new JdbcTemplate(replica).queryForObject(
+                "select count(*) from agendamento where loja_id = ?", Long.class, lojaId)).isZero();
+        assertThat(api.horarios(lojaId, servicoId, horario)).doesNotContain("10:00");
+    }
+
+    private void sincronizar() {
+        replicaLocal.sincronizar();
+    }
+
+    private long conexoesReplica() {
+        return (Long) roteamento.estatisticas().get("conexoesReplica");
+    }
+
+    private static long contar(DataSource dataSource, Long lojaId) {
+        return new JdbcTemplate(dataSource).queryForObject("select count(*) from loja where id = ?", Long.class, lojaId);
+    }
+
+    private void renomear(String url, Map<String, Object> body) {
+        ResponseEntity<String> resp = rest.exchange(url, HttpMethod.PUT, new HttpEntity<>(body), String.class);
+        assertThat(resp.getStatusCode().is2xxSuccessful()).isTrue();
+    }
+
+    /** Nome da loja e dos serviços em /public/loja/{id} */
+    @SuppressWarnings("unchecked")
+    private List<String> nomes(Long lojaId) {
+        Map<String, Object> body = rest.getForObject("/public/loja/" + lojaId, Map.class);
+        List<String> nomes = new ArrayList<>();
+        nomes.add((String) ((Map<String, Object>) body.get("loja")).get("nome"));
+        for (Map<String, Object> servico : (List<Map<String, Object>>) body.get("servicos")) {
+            nomes.add((String) servico.get("nome"));
+        }
+        return nomes;
+    }
+}
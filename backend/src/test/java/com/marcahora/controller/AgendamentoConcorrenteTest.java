@@ -0,0 +1,115 @@
+package com.marcahora.controller;
+
+import com.marcahora.ApiTeste;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Muitos pedidos ao mesmo tempo para o mesmo horário, pelo endpoint público
+ * e pelo painel: a {@link com.marcahora.service.TravaAgenda} deixa passar
+ * exatamente um por horário, sem segurar lojas diferentes.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class AgendamentoConcorrenteTest {
+
+    private static final LocalDateTime DEZ_HORAS = LocalDate.now().plusDays(4).atTime(10, 0);
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private ApiTeste api;
+
+    @BeforeEach
+    void api() {
+        api = new ApiTeste(rest);
+    }
+
+    @Test
+    void centenasDePedidosNoMesmoHorarioTemUmVencedor() throws Exception {
+        Long lojaId = api.criarLoja();
+        Long servicoId = api.criarServico(lojaId, "Corte", 30, new BigDecimal("50.00"));
+        Long clienteId = api.criarCliente(lojaId);
+
+        // Metade pelo público, metade pelo painel
+        List<ResponseEntity<String>> respostas = emParalelo(300, i -> i % 2 == 0
+                ? api.agendar(lojaId, servicoId, DEZ_HORAS)
+                : api.agendarPeloPainel(lojaId, clienteId, servicoId, DEZ_HORAS));
+
+        assertThat(respostas).filteredOn(r -> r.getStatusCode().is2xxSuccessful()).hasSize(1);
+        assertThat(respostas).filteredOn(r -> r.getStatusCode().is5xxServerError()).isEmpty();
+        assertThat(agendamentosNoHorario(lojaId)).isEqualTo(1);
+        assertThat(api.horarios(lojaId, servicoId, DEZ_HORAS)).doesNotContain("10:00");
+    }
+
+    @Test
+    void lojasDiferentesAgendamEmParalelo() throws Exception {
+        int lojas = 8;
+        List<Long> lojaIds = new ArrayList<>();
+        List<Long> servicoIds = new ArrayList<>();
+        for (int i = 0; i < lojas; i++) {
+            Long lojaId = api.criarLoja();
+            lojaIds.add(lojaId);
+            servicoIds.add(api.criarServico(lojaId, "Corte", 30, new BigDecimal("50.00")));
+        }
+
+        List<ResponseEntity<String>> respostas = emParalelo(lojas * 30,
+                i -> api.agendar(lojaIds.get(i % lojas), servicoIds.get(i % lojas), DEZ_HORAS));
+
+        assertThat(respostas).filteredOn(r -> r.getStatusCode().is2xxSuccessful()).hasSize(lojas);
+        for (Long lojaId : lojaIds) {
+            assertThat(agendamentosNoHorario(lojaId)).as("loja %d", lojaId).isEqualTo(1);
+        }
+    }
+
+    /** Dispara as n chamadas juntas, depois que todas as threads estão prontas */
+    private static <T> List<T> emParalelo(int n, IntFunction<T> chamada) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(64);
+        try {
+            CountDownLatch largada = new CountDownLatch(1);
+            List<Future<T>> futuros = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                int indice = i;
+                futuros.add(pool.submit(() -> {
+                    largada.await();
+                    return chamada.apply(indice);
+                }));
+            }
+            largada.countDown();
+
+            List<T> resultados = new ArrayList<>(n);
+            for (Future<T> futuro : futuros) {
+                resultados.add(futuro.get(2, TimeUnit.MINUTES));
+            }
+            return resultados;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private int agendamentosNoHorario(Long lojaId) {
+        return jdbc.queryForObject("select count(*) from agendamento where loja_id = ? and data_hora = ?",
+                Integer.class, lojaId, DEZ_HORAS);
+    }
+}
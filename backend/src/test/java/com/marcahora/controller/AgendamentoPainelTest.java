@@ -0,0 +1,118 @@
+package com.marcahora.controller;
+
+import com.marcahora.ApiTeste;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Agendamentos do painel: só a sobreposição com outro agendamento é
+ * recusada (encaixes, horários passados ou fora do funcionamento e horários
+ * com reserva continuam permitidos), também ao reativar um cancelado. No
+ * público, profissional de outra loja é recusado.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class AgendamentoPainelTest {
+
+    private static final LocalDate DIA = LocalDate.now().plusDays(8);
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private ApiTeste api;
+    private Long lojaId;
+    private Long servicoId;
+
+    @BeforeEach
+    void loja() {
+        api = new ApiTeste(rest);
+        lojaId = api.criarLoja();
+        servicoId = api.criarServico(lojaId, "Corte", 30, new BigDecimal("50.00"));
+    }
+
+    @Test
+    void painelSoRecusaSobreposicao() {
+        Long clienteId = api.criarCliente(lojaId);
+
+        // Depois do fechamento e fora da grade
+        assertThat(api.agendarPeloPainel(lojaId, clienteId, servicoId, DIA.atTime(20, 10)).getStatusCode().value())
+                .isEqualTo(200);
+        // Atendimento já feito
+        assertThat(api.agendarPeloPainel(lojaId, clienteId, servicoId, LocalDate.now().minusDays(1).atTime(10, 0))
+                .getStatusCode().value()).isEqualTo(200);
+        // Horário segurado por uma reserva do site
+        api.reservarComSucesso(lojaId, servicoId, DIA.atTime(10, 0));
+        assertThat(api.agendarPeloPainel(lojaId, clienteId, servicoId, DIA.atTime(10, 0)).getStatusCode().value())
+                .isEqualTo(200);
+
+        ResponseEntity<String> sobreposto = api.agendarPeloPainel(lojaId, clienteId, servicoId, DIA.atTime(20, 20));
+        assertThat(sobreposto.getStatusCode().value()).isEqualTo(400);
+        assertThat(sobreposto.getBody()).isEqualTo("Horário já está ocupado por outro agendamento.");
+        // Logo depois do fim (20:40) não sobrepõe
+        assertThat(api.agendarPeloPainel(lojaId, clienteId, servicoId, DIA.atTime(20, 40)).getStatusCode().value())
+                .isEqualTo(200);
+    }
+
+    @Test
+    void reativarCanceladoNoHorarioJaOcupado() {
+        Long primeiro = api.agendarComSucesso(lojaId, servicoId, DIA.atTime(11, 0));
+        api.alterarStatus(primeiro, "cancelado");
+        Long segundo = api.agendarComSucesso(lojaId, servicoId, DIA.atTime(11, 0));
+
+        ResponseEntity<String> reativado = status(primeiro, "agendado");
+        assertThat(reativado.getStatusCode().value()).isEqualTo(400);
+        assertThat(reativado.getBody()).isEqualTo("Horário já está ocupado por outro agendamento.");
+        assertThat(jdbc.queryForObject("select status from agendamento where id = ?", String.class, primeiro))
+                .isEqualToIgnoringCase("cancelado");
+
+        // Com o horário liberado de novo, reativa
+        api.alterarStatus(segundo, "cancelado");
+        assertThat(status(primeiro, "confirmado").getStatusCode().value()).isEqualTo(200);
+        // Ativo para ativo não passa pela verificação
+        assertThat(status(primeiro, "concluido").getStatusCode().value()).isEqualTo(200);
+    }
+
+    @Test
+    void profissionalDeOutraLojaNoAgendamentoPublico() {
+        Long outraLoja = api.criarLoja();
+        ResponseEntity<Map> profissional = rest.postForEntity("/api/profissionais/loja/" + outraLoja,
+                Map.of("nome", "Profissional de fora"), Map.class);
+        assertThat(profissional.getStatusCode().is2xxSuccessful()).isTrue();
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("lojaId", lojaId);
+        body.put("servicoId", servicoId);
+        body.put("profissionalId", profissional.getBody().get("id"));
+        body.put("dataHora", DIA.atTime(14, 0).toString());
+        body.put("nome", "Cliente Teste");
+        body.put("telefone", "11977776666");
+        ResponseEntity<String> resp = rest.postForEntity("/public/agendamentos/criar", body, String.class);
+
+        assertThat(resp.getStatusCode().value()).isEqualTo(400);
+        assertThat(resp.getBody()).isEqualTo("Profissional não encontrado");
+        assertThat(jdbc.queryForObject("select count(*) from agendamento where loja_id = ?", Integer.class, lojaId))
+                .isZero();
+    }
+
+    private ResponseEntity<String> status(Long agendamentoId, String status) {
+        return rest.exchange("/api/agendamentos/" + agendamentoId + "/status", HttpMethod.PUT,
+                new HttpEntity<>(Map.of("status", status)), String.class);
+    }
+}
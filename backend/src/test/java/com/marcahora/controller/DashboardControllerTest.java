@@ -0,0 +1,67 @@
+package com.marcahora.controller;
+
+import com.marcahora.ApiTeste;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Totais do GET /api/dashboard/{lojaId}?data=: contagens por status,
+ * faturamento sem os cancelados, e os próximos agendamentos.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class DashboardControllerTest {
+
+    private static final LocalDate DIA = LocalDate.now().plusDays(7);
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void totaisDoDia() {
+        ApiTeste api = new ApiTeste(rest);
+        Long lojaId = api.criarLoja();
+        Long corte = api.criarServico(lojaId, "Corte", 30, new BigDecimal("50.00"));
+        Long barba = api.criarServico(lojaId, "Barba", 30, new BigDecimal("30.00"));
+
+        api.agendarComSucesso(lojaId, corte, DIA.atTime(9, 0));
+        api.agendarComSucesso(lojaId, barba, DIA.atTime(10, 0));
+        Long cancelado = api.agendarComSucesso(lojaId, corte, DIA.atTime(11, 0));
+        api.alterarStatus(cancelado, "cancelado");
+        Long confirmado = api.agendarComSucesso(lojaId, barba, DIA.atTime(12, 0));
+        api.alterarStatus(confirmado, "confirmado");
+        // Outros dias: só entram nos próximos 7 dias
+        api.agendarComSucesso(lojaId, corte, DIA.plusDays(2).atTime(9, 0));
+        api.agendarComSucesso(lojaId, corte, DIA.plusDays(8).atTime(9, 0));
+
+        ResponseEntity<Map> resp = rest.getForEntity("/api/dashboard/{l}?data={d}", Map.class, lojaId, DIA);
+        assertThat(resp.getStatusCode().is2xxSuccessful()).isTrue();
+        Map<String, Object> body = resp.getBody();
+
+        assertThat(body.get("data")).isEqualTo(DIA.toString());
+        assertThat(body.get("totalClientes")).isEqualTo(6);
+        assertThat(body.get("totalServicos")).isEqualTo(2);
+        assertThat(body.get("agendamentosHoje")).isEqualTo(4);
+        assertThat((Map<String, Object>) body.get("agendamentosHojePorStatus"))
+                .containsOnly(Map.entry("AGENDADO", 2), Map.entry("CANCELADO", 1), Map.entry("CONFIRMADO", 1));
+        // 50 + 30 + 30: o cancelado não conta
+        assertThat(body.get("faturamentoHoje")).isEqualTo(110.0);
+        assertThat(body.get("restantesHoje")).isEqualTo(3);
+        assertThat(body.get("proximos7Dias")).isEqualTo(4);
+    }
+
+    @Test
+    void lojaInexistente() {
+        assertThat(rest.getForEntity("/api/dashboard/{l}", String.class, Long.MAX_VALUE).getStatusCode().value())
+                .isEqualTo(404);
+    }
+}
@@ -0,0 +1,89 @@
+package com.marcahora.controller;
+
+import com.marcahora.ApiTeste;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * CSV do GET /api/agendamentos/loja/{id}/export: cabeçalho, uma linha por
+ * agendamento do período na ordem da agenda, e o mesmo conteúdo com gzip.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ExportacaoAgendamentosTest {
+
+    private static final LocalDate DIA = LocalDate.now().plusDays(6);
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Test
+    void linhasDoPeriodoComESemGzip() throws IOException {
+        ApiTeste api = new ApiTeste(rest);
+        Long lojaId = api.criarLoja();
+        Long servicoId = api.criarServico(lojaId, "Corte; barba", 30, new BigDecimal("50.00"));
+
+        Long primeiro = api.agendarComSucesso(lojaId, servicoId, DIA.atTime(10, 0));
+        Long segundo = api.agendarComSucesso(lojaId, servicoId, DIA.atTime(11, 30));
+        // Fora do período
+        api.agendarComSucesso(lojaId, servicoId, DIA.plusDays(1).atTime(10, 0));
+
+        ResponseEntity<byte[]> simples = exportar(lojaId, null);
+        assertThat(simples.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+        String csv = new String(simples.getBody(), StandardCharsets.UTF_8);
+
+        assertThat(csv).startsWith("\uFEFF");
+        List<String> linhas = List.of(csv.substring(1).split("\r\n"));
+        assertThat(linhas).hasSize(3);
+        assertThat(linhas.get(0))
+                .isEqualTo("id;data;hora;status;cliente;telefone;servico;duracaoMinutos;profissional;observacoes");
+        assertThat(linhas.get(1)).matches(linha(primeiro, DIA.atTime(10, 0)));
+        assertThat(linhas.get(2)).matches(linha(segundo, DIA.atTime(11, 30)));
+
+        ResponseEntity<byte[]> compactado = exportar(lojaId, "gzip, deflate");
+        assertThat(compactado.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(compactado.getHeaders().getVary()).contains(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(descompactar(compactado.getBody())).isEqualTo(simples.getBody());
+    }
+
+    private ResponseEntity<byte[]> exportar(Long lojaId, String acceptEncoding) {
+        HttpHeaders headers = new HttpHeaders();
+        if (acceptEncoding != null) {
+            headers.set(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        ResponseEntity<byte[]> resp = rest.exchange("/api/agendamentos/loja/{l}/export?inicio={d}&fim={d}",
+                HttpMethod.GET, new HttpEntity<>(headers), byte[].class, lojaId, DIA, DIA);
+        assertThat(resp.getStatusCode().is2xxSuccessful()).isTrue();
+        return resp;
+    }
+
+    /** Padrão da linha: o telefone muda a cada cliente; o serviço tem o separador e sai entre aspas */
+    private static String linha(Long id, LocalDateTime dataHora) {
+        return Pattern.quote(id + ";" + dataHora.toLocalDate() + ";" + dataHora.toLocalTime() + ";AGENDADO;Cliente Teste;")
+                + "\\d+" + Pattern.quote(";\"Corte; barba\";30;;");
+    }
+
+    private static byte[] descompactar(byte[] gzip) throws IOException {
+        try (InputStream entrada = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return entrada.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.marcahora.controller;
+
+import com.marcahora.ApiTeste;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Listagens do painel depois do arquivamento: a paginação por cursor e a
+ * lista do dia juntam arquivo e tabela quente na ordem (data/hora, id),
+ * sem repetir nem perder agendamentos. Lotes pequenos para o arquivamento
+ * rodar em vários lotes.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "marcahora.arquivo.lote=4")
+class ListagemComArquivoTest {
+
+    private static final LocalDate DIA_ANTIGO = LocalDate.now().minusDays(400);
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void paginasEDiaJuntamArquivoETabelaQuente() {
+        ApiTeste api = new ApiTeste(rest);
+        Long lojaId = api.criarLoja();
+        Long servicoId = api.criarServico(lojaId, "Corte", 30, new BigDecimal("50.00"));
+
+        // Agendamentos antigos em dois dias, dois deles no mesmo horário (desempate pelo id)
+        for (int i = 0; i < 10; i++) {
+            LocalDateTime dataHora = DIA_ANTIGO.plusDays(i % 2).atTime(9 + i / 2, 0);
+            inserirAntigo(lojaId, dataHora);
+        }
+        inserirAntigo(lojaId, DIA_ANTIGO.atTime(9, 0));
+        for (int i = 0; i < 3; i++) {
+            api.agendarComSucesso(lojaId, servicoId, LocalDate.now().plusDays(3).atTime(10 + i, 0));
+        }
+
+        List<Long> antes = paginar(lojaId);
+        assertThat(antes).hasSize(14).doesNotHaveDuplicates();
+        List<Long> doDiaAntes = idsDoDia(lojaId, DIA_ANTIGO);
+        assertThat(doDiaAntes).hasSize(6);
+
+        ResponseEntity<Map> resumo = rest.postForEntity("/api/monitoramento/arquivamento", null, Map.class);
+        assertThat(resumo.getStatusCode().is2xxSuccessful()).isTrue();
+        assertThat(((Number) resumo.getBody().get("arquivados")).intValue()).isGreaterThanOrEqualTo(11);
+        assertThat(((Number) resumo.getBody().get("lotes")).intValue()).isGreaterThan(1);
+        assertThat(jdbc.queryForObject("select count(*) from agendamento where loja_id = ?", Integer.class, lojaId))
+                .isEqualTo(3);
+
+        assertThat(paginar(lojaId)).isEqualTo(antes);
+        assertThat(idsDoDia(lojaId, DIA_ANTIGO)).isEqualTo(doDiaAntes);
+
+        // Agendamento antigo que chegou depois (importação): fica na tabela quente,
+        // no mesmo horário de um arquivado, e entra entre eles pelo id
+        Long tardio = inserirAntigo(lojaId, DIA_ANTIGO.atTime(9, 0));
+        List<Long> esperado = new ArrayList<>(antes);
+        esperado.add(2, tardio);
+        assertThat(paginar(lojaId)).isEqualTo(esperado);
+        assertThat(idsDoDia(lojaId, DIA_ANTIGO)).startsWith(antes.get(0), antes.get(1), tardio);
+    }
+
+    private Long inserirAntigo(Long lojaId, LocalDateTime dataHora) {
+        jdbc.update("insert into agendamento (loja_id, data_hora, status, preco) values (?, ?, 'AGENDADO', 10)",
+                lojaId, dataHora);
+        return jdbc.queryForObject("select max(id) from agendamento where loja_id = ?", Long.class, lojaId);
+    }
+
+    /** Ids de todas as páginas, com limite 3 para o cursor cruzar arquivo e tabela quente */
+    @SuppressWarnings("unchecked")
+    private List<Long> paginar(Long lojaId) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            String url = "/api/agendamentos/loja/" + lojaId + "?limite=3" + (cursor == null ? "" : "&cursor=" + cursor);
+            ResponseEntity<Map> resp = rest.getForEntity(url, Map.class);
+            assertThat(resp.getStatusCode().is2xxSuccessful()).isTrue();
+            List<Map<String, Object>> itens = (List<Map<String, Object>>) resp.getBody().get("itens");
+            itens.forEach(item -> ids.add(((Number) item.get("id")).longValue()));
+            cursor = (String) resp.getBody().get("proximoCursor");
+        } while (cursor != null);
+        return ids;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> idsDoDia(Long lojaId, LocalDate dia) {
+        List<Map<String, Object>> itens = rest.getForObject(
+                "/api/agendamentos/loja/{l}/data?data={d}", List.class, lojaId, dia);
+        return itens.stream().map(item -> ((Number) item.get("id")).longValue()).toList();
+    }
+}
@@ -0,0 +1,90 @@
+package com.marcahora.controller;
+
+import com.marcahora.ApiTeste;
+import com.marcahora.service.ReservasHorario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reserva temporária confirmada pelo /agendamentos/criar: o token só vale
+ * para o horário reservado e só sai depois que o agendamento foi gravado.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "marcahora.reservas.max-por-loja=3")
+class ReservaHorarioTest {
+
+    private static final LocalDateTime DEZ_HORAS = LocalDate.now().plusDays(3).atTime(10, 0);
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private ReservasHorario reservasHorario;
+
+    private ApiTeste api;
+    private Long lojaId;
+    private Long servicoId;
+
+    @BeforeEach
+    void loja() {
+        api = new ApiTeste(rest);
+        lojaId = api.criarLoja();
+        servicoId = api.criarServico(lojaId, "Corte", 30, new BigDecimal("50.00"));
+    }
+
+    @Test
+    void reservaConfirmaOProprioHorario() {
+        String token = api.reservarComSucesso(lojaId, servicoId, DEZ_HORAS);
+        assertThat(api.horarios(lojaId, servicoId, DEZ_HORAS)).doesNotContain("10:00");
+
+        api.agendarComSucesso(lojaId, servicoId, DEZ_HORAS, token);
+
+        assertThat(reservasHorario.buscar(token)).isNull();
+        assertThat(api.horarios(lojaId, servicoId, DEZ_HORAS)).doesNotContain("10:00");
+    }
+
+    @Test
+    void tokenDeOutroHorarioNaoAgendaNemLiberaAReserva() {
+        String token = api.reservarComSucesso(lojaId, servicoId, DEZ_HORAS);
+
+        assertThat(api.agendar(lojaId, servicoId, DEZ_HORAS.plusHours(1), token).getStatusCode().value())
+                .isEqualTo(409);
+
+        // A reserva continua segurando as 10:00
+        assertThat(reservasHorario.buscar(token)).isNotNull();
+        assertThat(api.horarios(lojaId, servicoId, DEZ_HORAS)).doesNotContain("10:00");
+        assertThat(api.agendar(lojaId, servicoId, DEZ_HORAS).getStatusCode().is2xxSuccessful()).isFalse();
+    }
+
+    @Test
+    void tokenDeOutraLojaNaoVale() {
+        Long outraLoja = api.criarLoja();
+        Long outroServico = api.criarServico(outraLoja, "Corte", 30, new BigDecimal("50.00"));
+        String token = api.reservarComSucesso(outraLoja, outroServico, DEZ_HORAS);
+
+        assertThat(api.agendar(lojaId, servicoId, DEZ_HORAS, token).getStatusCode().value()).isEqualTo(409);
+        assertThat(reservasHorario.buscar(token)).isNotNull();
+    }
+
+    @Test
+    void limiteDeReservasPorLoja() {
+        for (int i = 0; i < 3; i++) {
+            api.reservarComSucesso(lojaId, servicoId, DEZ_HORAS.plusHours(i));
+        }
+        assertThat(api.reservar(lojaId, servicoId, DEZ_HORAS.plusHours(3)).getStatusCode().value()).isEqualTo(503);
+
+        // O limite é de cada loja
+        Long outraLoja = api.criarLoja();
+        Long outroServico = api.criarServico(outraLoja, "Corte", 30, new BigDecimal("50.00"));
+        api.reservarComSucesso(outraLoja, outroServico, DEZ_HORAS);
+    }
+}
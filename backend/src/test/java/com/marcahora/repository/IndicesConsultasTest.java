@@ -0,0 +1,123 @@
+package com.marcahora.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Planos das consultas de V2__indices_consultas.sql com 1M agendamentos e
+ * 250 mil clientes: cada uma precisa usar o seu índice, não varrer a tabela.
+ *
+ * Roda num H2 próprio (não no dos testes com Spring), migrado pelo Flyway
+ * até a última versão. Os índices de cliente da V2 foram trocados na V8
+ * pelos de contato normalizado; a consulta do agendamento público é
+ * conferida com eles.
+ */
+class IndicesConsultasTest {
+
+    private static final int LOJAS = 200;
+    private static final int PROFISSIONAIS_POR_LOJA = 5;
+    private static final int AGENDAMENTOS = 1_000_000;
+    private static final int CLIENTES = 250_000;
+    private static final int BLOCO = 50_000;
+
+    private static SingleConnectionDataSource dataSource;
+    private static JdbcTemplate jdbc;
+
+    @BeforeAll
+    static void popular() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:indices;DB_CLOSE_DELAY=-1", "sa", "", true);
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbc = new JdbcTemplate(dataSource);
+
+        jdbc.update("insert into loja (nome, ativa) select 'Loja ' || x, true from system_range(1, ?)", LOJAS);
+        jdbc.update("insert into profissional (loja_id, nome, ativo) "
+                + "select mod(x, ?) + 1, 'Profissional ' || x, true from system_range(1, ?)",
+                LOJAS, LOJAS * PROFISSIONAIS_POR_LOJA);
+
+        // Em blocos: um insert só de 1M linhas deixa o H2 lento com o log da transação
+        for (int de = 1; de <= CLIENTES; de += BLOCO) {
+            // Clientes espalhados pelas lojas, com contato único por loja
+            jdbc.update("insert into cliente (id, loja_id, nome, email, telefone, email_normalizado, "
+                    + "telefone_normalizado) select x, mod(x, ?) + 1, 'Cliente ' || x, 'c' || x || '@teste.com', "
+                    + "'11' || (900000000 + x), 'c' || x || '@teste.com', '11' || (900000000 + x) "
+                    + "from system_range(?, ?)",
+                    LOJAS, de, de + BLOCO - 1);
+        }
+        for (int de = 1; de <= AGENDAMENTOS; de += BLOCO) {
+            // Um ano de agendamentos, a cada 30 minutos, com profissional da própria loja
+            jdbc.update("insert into agendamento (loja_id, profissional_id, data_hora, status) "
+                    + "select mod(x, ?) + 1, mod(x, ?) + 1 + ? * mod(x / ?, ?), "
+                    + "dateadd(minute, 30 * (x / ?), timestamp '2025-01-01 00:00:00'), 'AGENDADO' "
+                    + "from system_range(?, ?)",
+                    LOJAS, LOJAS, LOJAS, LOJAS, PROFISSIONAIS_POR_LOJA, LOJAS, de, de + BLOCO - 1);
+        }
+
+        jdbc.execute("analyze");
+    }
+
+    @AfterAll
+    static void encerrar() {
+        jdbc.execute("drop all objects");
+        dataSource.destroy();
+    }
+
+    @Test
+    void agendamentosDaLojaNoPeriodo() {
+        // AgendamentoRepository.findByLojaIdAndDataHoraBetween
+        String plano = explicar("select * from agendamento where loja_id = ? and data_hora between ? and ?",
+                42, LocalDateTime.of(2025, 3, 10, 0, 0), LocalDateTime.of(2025, 3, 10, 23, 59));
+
+        assertThat(plano).containsIgnoringCase("IDX_AGENDAMENTO_LOJA_DATA").doesNotContainIgnoringCase("tableScan");
+    }
+
+    @Test
+    void agendamentosDoProfissionalNoPeriodo() {
+        // AgendamentoRepository.findByLojaIdAndProfissionalIdAndDataHoraBetween
+        String plano = explicar("select * from agendamento "
+                        + "where loja_id = ? and profissional_id = ? and data_hora between ? and ?",
+                42, 42, LocalDateTime.of(2025, 3, 10, 0, 0), LocalDateTime.of(2025, 3, 10, 23, 59));
+
+        assertThat(plano).containsIgnoringCase("IDX_AGENDAMENTO_LOJA_PROF_DATA").doesNotContainIgnoringCase("tableScan");
+    }
+
+    @Test
+    void clientePorEmailOuTelefone() {
+        // ClienteRepository.buscarPorContato: as duas chaves numa consulta só
+        String plano = explicar("select * from cliente where loja_id = ? and email_normalizado = ? "
+                        + "union select * from cliente where loja_id = ? and telefone_normalizado = ?",
+                42, "c242@teste.com", 42, "11900000442");
+
+        assertThat(plano).containsIgnoringCase("UK_CLIENTE_LOJA_EMAIL")
+                .containsIgnoringCase("UK_CLIENTE_LOJA_TELEFONE")
+                .doesNotContainIgnoringCase("tableScan")
+                .doesNotContainIgnoringCase("FK_CLIENTE_LOJA");
+    }
+
+    @Test
+    void clientePorEmail() {
+        String plano = explicar("select * from cliente where loja_id = ? and email_normalizado = ?",
+                42, "c242@teste.com");
+
+        assertThat(plano).containsIgnoringCase("UK_CLIENTE_LOJA_EMAIL").doesNotContainIgnoringCase("tableScan");
+    }
+
+    @Test
+    void clientePorTelefone() {
+        String plano = explicar("select * from cliente where loja_id = ? and telefone_normalizado = ?",
+                42, "11900000442");
+
+        assertThat(plano).containsIgnoringCase("UK_CLIENTE_LOJA_TELEFONE").doesNotContainIgnoringCase("tableScan");
+    }
+
+    private static String explicar(String sql, Object... parametros) {
+        return jdbc.queryForObject("explain " + sql, String.class, parametros);
+    }
+}
@@ -0,0 +1,158 @@
+package com.marcahora.service;
+
+import com.marcahora.ApiTeste;
+import com.marcahora.model.Agendamento;
+import com.marcahora.model.Loja;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Totais diários: preço gravado no agendamento, linha criada pelo MERGE
+ * na própria transação (inclusive com várias transações na mesma chave
+ * nova) e totais incrementais iguais aos da reconstrução.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class EstatisticasDiariasTest {
+
+    private static final LocalDateTime DEZ_HORAS = LocalDate.now().plusDays(5).atTime(10, 0);
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private EstatisticasDiarias estatisticasDiarias;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private ApiTeste api;
+
+    @BeforeEach
+    void api() {
+        api = new ApiTeste(rest);
+    }
+
+    @Test
+    void reajusteDoServicoNaoMudaOsTotais() {
+        Long lojaId = api.criarLoja();
+        Long servicoId = api.criarServico(lojaId, "Corte", 30, new BigDecimal("50.00"));
+        Long agendamentoId = api.agendarComSucesso(lojaId, servicoId, DEZ_HORAS);
+
+        api.atualizarServico(servicoId, "Corte", 30, new BigDecimal("80.00"));
+        assertThat(total(lojaId).get("faturamento")).isEqualTo(50.0);
+
+        // Cancelado depois do reajuste: tira os 50 que somou, não os 80 atuais
+        api.alterarStatus(agendamentoId, "cancelado");
+        Map<String, Object> total = total(lojaId);
+        assertThat(total.get("faturamento")).isEqualTo(0.0);
+        assertThat(total.get("quantidade")).isEqualTo(1);
+        assertThat(total.get("cancelados")).isEqualTo(1);
+    }
+
+    @Test
+    void transacoesSimultaneasNaMesmaChaveNova() throws Exception {
+        Long lojaId = api.criarLoja();
+        Loja loja = new Loja();
+        loja.setId(lojaId);
+
+        int transacoes = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(transacoes);
+        try {
+            CountDownLatch largada = new CountDownLatch(1);
+            List<Future<?>> futuros = new ArrayList<>();
+            for (int i = 0; i < transacoes; i++) {
+                futuros.add(pool.submit(() -> {
+                    largada.await();
+                    transactionTemplate.executeWithoutResult(status -> {
+                        Agendamento ag = new Agendamento();
+                        ag.setLoja(loja);
+                        ag.setDataHora(DEZ_HORAS);
+                        ag.setStatus("AGENDADO");
+                        ag.setPreco(new BigDecimal("10.00"));
+                        estatisticasDiarias.agendamentoCriado(ag);
+                    });
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> futuro : futuros) {
+                futuro.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(jdbc.queryForObject("select count(*) from estatistica_diaria where loja_id = ?",
+                Integer.class, lojaId)).isEqualTo(1);
+        Map<String, Object> total = total(lojaId);
+        assertThat(total.get("quantidade")).isEqualTo(transacoes);
+        assertThat(total.get("faturamento")).isEqualTo(10.0 * transacoes);
+    }
+
+    @Test
+    void totaisIncrementaisIguaisAReconstrucao() {
+        Long lojaId = api.criarLoja();
+        Long corte = api.criarServico(lojaId, "Corte", 30, new BigDecimal("50.00"));
+        Long barba = api.criarServico(lojaId, "Barba", 30, new BigDecimal("30.00"));
+        LocalDate dia = DEZ_HORAS.toLocalDate();
+
+        api.agendarComSucesso(lojaId, corte, dia.atTime(9, 0));
+        Long confirmado = api.agendarComSucesso(lojaId, barba, dia.atTime(10, 0));
+        Long concluido = api.agendarComSucesso(lojaId, corte, dia.atTime(11, 0));
+        Long cancelado = api.agendarComSucesso(lojaId, barba, dia.plusDays(1).atTime(9, 0));
+        api.agendarComSucesso(lojaId, barba, dia.plusDays(2).atTime(9, 0));
+        api.alterarStatus(confirmado, "confirmado");
+        api.alterarStatus(concluido, "confirmado");
+        api.alterarStatus(concluido, "concluido");
+        api.alterarStatus(cancelado, "cancelado");
+        // Reajuste e reativação depois de cancelar: os dois lados usam o preço gravado
+        api.atualizarServico(barba, "Barba", 30, new BigDecimal("45.00"));
+        api.alterarStatus(cancelado, "confirmado");
+
+        List<Map<String, Object>> incrementais = linhas(lojaId);
+        Map<String, Object> relatorioIncremental = api.relatorio(lojaId, dia, dia.plusDays(2));
+
+        ResponseEntity<Map> reconstrucao = rest.postForEntity(
+                "/api/estatisticas/loja/" + lojaId + "/reconstruir", null, Map.class);
+        assertThat(reconstrucao.getStatusCode().is2xxSuccessful()).isTrue();
+
+        assertThat(linhas(lojaId)).isEqualTo(incrementais).hasSize(4);
+        assertThat(api.relatorio(lojaId, dia, dia.plusDays(2))).isEqualTo(relatorioIncremental);
+    }
+
+    /** Linhas da loja sem o id (a reconstrução recria as linhas) */
+    private List<Map<String, Object>> linhas(Long lojaId) {
+        return jdbc.queryForList("select data, profissional_id, servico_id, quantidade, agendados, confirmados, "
+                + "concluidos, cancelados, faturamento from estatistica_diaria where loja_id = ? "
+                + "order by data, profissional_id, servico_id", lojaId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> total(Long lojaId) {
+        return (Map<String, Object>) api.relatorio(lojaId, DEZ_HORAS.toLocalDate(), DEZ_HORAS.toLocalDate())
+                .get("total");
+    }
+}
@@ -0,0 +1,100 @@
+package com.marcahora.service;
+
+import com.marcahora.ApiTeste;
+import com.marcahora.model.Cliente;
+import com.marcahora.model.Loja;
+import com.marcahora.repository.ClienteRepository;
+import com.marcahora.repository.LojaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Importação de clientes: cabeçalho com BOM, e-mail/telefone com outra
+ * formatação não contam como alteração, e um bloco que esbarra no índice
+ * único (cliente gravado por fora no meio da importação) é gravado de novo.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ImportacaoClientesTest {
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private ImportacaoClientes importacaoClientes;
+
+    @Autowired
+    private LojaRepository lojaRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    private Loja loja;
+
+    @BeforeEach
+    void loja() {
+        loja = lojaRepository.findById(new ApiTeste(rest).criarLoja()).orElseThrow();
+    }
+
+    @Test
+    void cabecalhoComBomEChavesComOutraFormatacao() throws IOException {
+        ImportacaoClientes.Resultado primeira = importar("\uFEFFnome;email;telefone\nAna;ana@mail.com;11987654321\n");
+        assertThat(primeira.inseridos).isEqualTo(1);
+        assertThat(clientes()).extracting(Cliente::getNome).containsExactly("Ana");
+
+        ImportacaoClientes.Resultado segunda = importar("nome,email,telefone\nAna, ANA@Mail.com ,(11) 98765-4321\n");
+        assertThat(segunda.atualizados).isZero();
+        assertThat(segunda.ignorados).isEqualTo(1);
+        assertThat(clientes()).extracting(Cliente::getEmail).containsExactly("ana@mail.com");
+        assertThat(clientes()).extracting(Cliente::getTelefone).containsExactly("11987654321");
+    }
+
+    @Test
+    void blocoRepetidoQuandoOutroCadastroGravaAMesmaChave() throws IOException {
+        String csv = "nome,email,telefone\nBia,bia@mail.com,11911112222\nCarla,carla@mail.com,11933334444\n";
+        // Lidas as linhas (e as chaves da loja), a Carla é cadastrada por fora antes do bloco ser gravado
+        BufferedReader leitor = new BufferedReader(new StringReader(csv)) {
+            private boolean cadastrou;
+
+            @Override
+            public String readLine() throws IOException {
+                String texto = super.readLine();
+                if (texto == null && !cadastrou) {
+                    cadastrou = true;
+                    Cliente carla = new Cliente();
+                    carla.setLoja(loja);
+                    carla.setNome("Carla (site)");
+                    carla.setEmail("carla@mail.com");
+                    carla.setTelefone("");
+                    clienteRepository.save(carla);
+                }
+                return texto;
+            }
+        };
+
+        ImportacaoClientes.Resultado resultado = importacaoClientes.importar(loja, leitor, ImportacaoClientes.Formato.CSV);
+
+        assertThat(resultado.erros).isEmpty();
+        assertThat(resultado.inseridos).isEqualTo(1);
+        assertThat(resultado.atualizados).isEqualTo(1);
+        assertThat(clientes()).extracting(Cliente::getNome).containsExactlyInAnyOrder("Bia", "Carla");
+        assertThat(clientes()).extracting(Cliente::getTelefone).contains("11933334444");
+    }
+
+    private ImportacaoClientes.Resultado importar(String csv) throws IOException {
+        return importacaoClientes.importar(loja, new BufferedReader(new StringReader(csv)), ImportacaoClientes.Formato.CSV);
+    }
+
+    private List<Cliente> clientes() {
+        return clienteRepository.findByLojaId(loja.getId());
+    }
+}
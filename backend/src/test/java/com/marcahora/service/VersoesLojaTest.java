@@ -0,0 +1,98 @@
+package com.marcahora.service;
+
+import com.marcahora.ApiTeste;
+import com.marcahora.model.Loja;
+import com.marcahora.repository.LojaRepository;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * A versão da loja muda na mesma transação da escrita: só com a escrita
+ * commitada, e nunca fora de uma transação. Só a entrada da própria loja
+ * sai do cache de segundo nível.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class VersoesLojaTest {
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private VersoesLoja versoesLoja;
+
+    @Autowired
+    private LojaRepository lojaRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void escritaCommitadaMudaAVersao() {
+        ApiTeste api = new ApiTeste(rest);
+        Long lojaId = api.criarLoja();
+        Long servicoId = api.criarServico(lojaId, "Corte", 30, new BigDecimal("50.00"));
+        long antes = versao(lojaId);
+
+        api.atualizarServico(servicoId, "Corte", 45, new BigDecimal("50.00"));
+
+        assertThat(versao(lojaId)).isEqualTo(antes + 1);
+    }
+
+    @Test
+    void escritaNaoDescartaAsOutrasLojasDoCache() {
+        ApiTeste api = new ApiTeste(rest);
+        Long lojaId = api.criarLoja();
+        Long outraLoja = api.criarLoja();
+        Long servicoId = api.criarServico(lojaId, "Corte", 30, new BigDecimal("50.00"));
+        lojaRepository.findById(lojaId);
+        lojaRepository.findById(outraLoja);
+        Cache cache = entityManagerFactory.getCache();
+        assertThat(cache.contains(Loja.class, outraLoja)).isTrue();
+
+        api.atualizarServico(servicoId, "Corte", 40, new BigDecimal("50.00"));
+
+        assertThat(cache.contains(Loja.class, outraLoja)).isTrue();
+        // A entrada da própria loja sai do cache: a próxima leitura traz a versão nova
+        assertThat(lojaRepository.findById(lojaId).orElseThrow().getVersao()).isEqualTo(versao(lojaId));
+    }
+
+    @Test
+    void rollbackDesfazAVersao() {
+        Long lojaId = new ApiTeste(rest).criarLoja();
+        long antes = versao(lojaId);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            versoesLoja.alterada(lojaId);
+            status.setRollbackOnly();
+        });
+
+        assertThat(versao(lojaId)).isEqualTo(antes);
+    }
+
+    @Test
+    void foraDeTransacaoFalha() {
+        Long lojaId = new ApiTeste(rest).criarLoja();
+        long antes = versao(lojaId);
+
+        assertThatThrownBy(() -> versoesLoja.alterada(lojaId)).isInstanceOf(IllegalTransactionStateException.class);
+        assertThat(versao(lojaId)).isEqualTo(antes);
+    }
+
+    private long versao(Long lojaId) {
+        return lojaRepository.buscarVersao(lojaId).orElseThrow().versao();
+    }
+}
@@ -7,6 +7,7 @@ export default function Agendamentos() {
   const { lojaId } = useAuth();
   const [data, setData] = useState(new Date().toISOString().split("T")[0]);
   const [lista, setLista] = useState([]);
+  const [respostas, setRespostas] = useState({});
   const [carregando, setCarregando] = useState(false);
   const [filtroStatus, setFiltroStatus] = useState("TODOS");
 
@@ -18,11 +19,23 @@ export default function Agendamentos() {
   async function carregarAgendamentos() {
     setCarregando(true);
     try {
-      const resp = await api.get(`/api/agendamentos/loja/${lojaId}/data?data=${data}`);
+      // Agendamentos e respostas dos campos personalizados do dia, em paralelo
+      const [resp, respRespostas] = await Promise.all([
+        api.get(`/api/agendamentos/loja/${lojaId}/data?data=${data}`),
+        api.get(`/api/agendamentos/loja/${lojaId}/respostas?inicio=${data}`)
+      ]);
       setLista(resp.data || []);
+
+      const porAgendamento = {};
+      for (const r of respRespostas.data || []) {
+        if (!porAgendamento[r.agendamentoId]) porAgendamento[r.agendamentoId] = [];
+        porAgendamento[r.agendamentoId].push(r);
+      }
+      setRespostas(porAgendamento);
     } catch (error) {
       console.error("Erro ao carregar agendamentos:", error);
       setLista([]);
+      setRespostas({});
     } finally {
       setCarregando(false);
     }
@@ -174,26 +187,26 @@ export default function Agendamentos() {
               {/* Conteúdo */}
               <div className="card-content">
                 <h3 className="card-title">
-                  {ag.cliente?.nome || 'Cliente'}
+                  {ag.clienteNome || 'Cliente'}
                 </h3>
                 
-                {ag.servico && (
+                {ag.servicoNome && (
                   <div className="card-service">
-                    {ag.servico.nome || ag.servico.descricao}
+                    {ag.servicoNome}
                   </div>
                 )}
 
                 <div className="card-details">
-                  {ag.profissional && (
+                  {ag.profissionalNome && (
                     <span className="detail-item">
                       <span className="detail-icon">👤</span>
-                      {ag.profissional.nome}
+                      {ag.profissionalNome}
                     </span>
                   )}
-                  {ag.cliente?.telefone && (
+                  {ag.clienteTelefone && (
                     <span className="detail-item">
                       <span className="detail-icon">📱</span>
-                      {ag.cliente.telefone}
+                      {ag.clienteTelefone}
                     </span>
                   )}
                 </div>
@@ -203,6 +216,12 @@ export default function Agendamentos() {
                     💬 {ag.observacoes}
                   </div>
                 )}
+
+                {respostas[ag.id]?.map((r) => (
+                  <div key={r.campoId} className="card-note">
+                    📝 {r.pergunta}: {r.resposta}
+                  </div>
+                ))}
               </div>
 
               {/* Status e Ações */}
@@ -8,33 +8,69 @@ export default function Clientes() {
   const [lista, setLista] = useState([]);
   const [carregando, setCarregando] = useState(false);
   const [busca, setBusca] = useState("");
+  const [proximoCursor, setProximoCursor] = useState(null);
+  const [carregandoMais, setCarregandoMais] = useState(false);
+  const [resultados, setResultados] = useState(null);
 
   useEffect(() => {
     if (!lojaId) return;
     carregar();
   }, [lojaId]);
 
+  // Busca no servidor (índice da loja), esperando a digitação parar
+  useEffect(() => {
+    const termo = busca.trim();
+    if (!lojaId || !termo) {
+      setResultados(null);
+      return;
+    }
+    let atual = true;
+    const espera = setTimeout(async () => {
+      try {
+        const resp = await api.get(`/api/clientes/loja/${lojaId}/search`, { params: { q: termo, limite: 50 } });
+        if (atual) setResultados(resp.data || []);
+      } catch (error) {
+        console.error(error);
+        if (atual) setResultados([]);
+      }
+    }, 250);
+    return () => {
+      atual = false;
+      clearTimeout(espera);
+    };
+  }, [busca, lojaId]);
+
   async function carregar() {
     setCarregando(true);
     try {
       const resp = await api.get(`/api/clientes/loja/${lojaId}`);
-      setLista(resp.data || []);
+      setLista(resp.data.itens || []);
+      setProximoCursor(resp.data.proximoCursor);
     } catch (error) {
       console.error(error);
       setLista([]);
+      setProximoCursor(null);
     } finally {
       setCarregando(false);
     }
   }
 
-  const listaFiltrada = lista.filter(cliente => {
-    const termoBusca = busca.toLowerCase();
-    return (
-      cliente.nome?.toLowerCase().includes(termoBusca) ||
-      cliente.telefone?.toLowerCase().includes(termoBusca) ||
-      cliente.email?.toLowerCase().includes(termoBusca)
-    );
-  });
+  async function carregarMais() {
+    if (!proximoCursor) return;
+    setCarregandoMais(true);
+    try {
+      const resp = await api.get(`/api/clientes/loja/${lojaId}`, { params: { cursor: proximoCursor } });
+      setLista((atual) => [...atual, ...(resp.data.itens || [])]);
+      setProximoCursor(resp.data.proximoCursor);
+    } catch (error) {
+      console.error(error);
+    } finally {
+      setCarregandoMais(false);
+    }
+  }
+
+  const buscando = busca.trim() !== "";
+  const listaFiltrada = buscando ? (resultados || []) : lista;
 
   if (carregando) {
     return (
@@ -92,7 +128,7 @@ export default function Clientes() {
                 {lista.length}
               </div>
             </div>
-            {busca && (
+            {buscando && resultados && (
               <div>
                 <div style={{ fontSize: '14px', color: '#777', marginBottom: '4px' }}>
                   Resultados da Busca
@@ -123,6 +159,8 @@ export default function Clientes() {
             Os clientes aparecerão aqui quando fizerem agendamentos
           </p>
         </div>
+      ) : buscando && !resultados ? (
+        <p style={{ textAlign: 'center', color: '#999' }}>Buscando...</p>
       ) : listaFiltrada.length === 0 ? (
         <div style={{
           background: 'white',
@@ -175,6 +213,14 @@ export default function Clientes() {
           ))}
         </ul>
       )}
+
+      {proximoCursor && !buscando && (
+        <div style={{ textAlign: 'center', marginTop: '16px' }}>
+          <button className="btn-editar" onClick={carregarMais} disabled={carregandoMais}>
+            {carregandoMais ? 'Carregando...' : 'Carregar mais'}
+          </button>
+        </div>
+      )}
     </div>
   );
 }
\ No newline at end of file
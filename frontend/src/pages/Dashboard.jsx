@@ -11,9 +11,11 @@ export default function Dashboard() {
   const [agendamentosHoje, setAgendamentosHoje] = useState([]);
   const [linkPublico, setLinkPublico] = useState("");
   const [estatisticas, setEstatisticas] = useState({
+    agendamentosHoje: 0,
     totalClientes: 0,
     totalServicos: 0,
-    agendamentosMes: 0
+    faturamentoHoje: 0,
+    proximos7Dias: 0
   });
   const [carregando, setCarregando] = useState(true);
 
@@ -26,26 +28,14 @@ export default function Dashboard() {
     try {
       const hoje = new Date().toISOString().split("T")[0];
 
-      // Agendamentos de hoje
-      const respAgendamentos = await api.get(`/api/agendamentos/loja/${lojaId}/data?data=${hoje}`);
+      // Resumo (contagens e faturamento calculados no servidor) e lista do dia
+      const [respResumo, respAgendamentos] = await Promise.all([
+        api.get(`/api/dashboard/${lojaId}`, { params: { data: hoje } }),
+        api.get(`/api/agendamentos/loja/${lojaId}/data?data=${hoje}`)
+      ]);
+      setEstatisticas(respResumo.data);
       setAgendamentosHoje(respAgendamentos.data || []);
 
-      // Estatísticas
-      try {
-        const [respClientes, respServicos] = await Promise.all([
-          api.get(`/api/clientes/loja/${lojaId}`),
-          api.get(`/api/servicos/loja/${lojaId}`)
-        ]);
-
-        setEstatisticas({
-          totalClientes: respClientes.data?.length || 0,
-          totalServicos: respServicos.data?.length || 0,
-          agendamentosMes: 0
-        });
-      } catch (err) {
-        console.log("Erro ao carregar estatísticas:", err);
-      }
-
       setLinkPublico(`${window.location.origin}/public/loja/${lojaId}`);
       setCarregando(false);
     } catch (error) {
@@ -97,7 +87,7 @@ export default function Dashboard() {
           <div className="kpi-icon-modern">📅</div>
           <div className="kpi-content">
             <span className="kpi-label">Agendamentos Hoje</span>
-            <span className="kpi-value">{agendamentosHoje.length}</span>
+            <span className="kpi-value">{estatisticas.agendamentosHoje}</span>
           </div>
         </div>
 
@@ -117,6 +107,24 @@ export default function Dashboard() {
           </div>
         </div>
 
+        <div className="kpi-card kpi-purple">
+          <div className="kpi-icon-modern">💰</div>
+          <div className="kpi-content">
+            <span className="kpi-label">Faturamento Hoje</span>
+            <span className="kpi-value">
+              {Number(estatisticas.faturamentoHoje || 0).toLocaleString('pt-BR', { style: 'currency', currency: 'BRL' })}
+            </span>
+          </div>
+        </div>
+
+        <div className="kpi-card kpi-green">
+          <div className="kpi-icon-modern">🗓️</div>
+          <div className="kpi-content">
+            <span className="kpi-label">Próximos 7 Dias</span>
+            <span className="kpi-value">{estatisticas.proximos7Dias}</span>
+          </div>
+        </div>
+
       </div>
 
       {/* Link Público */}
@@ -230,21 +238,21 @@ export default function Dashboard() {
                     fontSize: '16px',
                     marginBottom: '4px'
                   }}>
-                    {ag.cliente?.nome || 'Cliente'}
+                    {ag.clienteNome || 'Cliente'}
                   </div>
                   <div style={{ 
                     fontSize: '14px',
                     color: '#777',
                     marginBottom: '4px'
                   }}>
-                    {ag.servico?.nome || ag.servico?.descricao || 'Serviço'}
+                    {ag.servicoNome || 'Serviço'}
                   </div>
-                  {ag.profissional && (
+                  {ag.profissionalNome && (
                     <div style={{ 
                       fontSize: '13px',
                       color: '#999'
                     }}>
-                      👤 {ag.profissional.nome}
+                      👤 {ag.profissionalNome}
                     </div>
                   )}
                 </div>
@@ -1,6 +1,6 @@
 import { useEffect, useState } from "react";
 import { useAuth } from "../context/AuthContext";
-import api from "../services/api";
+import api, { listarTodasPaginas } from "../services/api";
 import "../styles/profissionais.css";
 
 export default function Profissionais() {
@@ -25,8 +25,7 @@ export default function Profissionais() {
   async function carregar() {
     setCarregando(true);
     try {
-      const resp = await api.get(`/api/profissionais/loja/${lojaId}`);
-      setLista(resp.data || []);
+      setLista(await listarTodasPaginas(`/api/profissionais/loja/${lojaId}`));
     } catch (error) {
       console.error(error);
       setLista([]);
@@ -95,6 +95,7 @@ export default function PublicConfirmar() {
       servicoId: loja.usaServicos ? Number(servicoId) : null,
       profissionalId: profissionalId ? Number(profissionalId) : null,
       dataHora,
+      reservaToken: searchParams.get('reservaToken'),
       nome,
       telefone,
       email,
@@ -136,6 +137,15 @@ export default function PublicConfirmar() {
     }
   }
 
+  function voltar() {
+    // Libera o horário segurado para outros clientes
+    const reservaToken = searchParams.get('reservaToken');
+    if (reservaToken) {
+      api.delete(`/public/agendamentos/reservas/${reservaToken}`).catch(() => {});
+    }
+    navigate(-1);
+  }
+
   if (carregando) {
     return (
       <div className="public-container">
@@ -355,7 +365,7 @@ export default function PublicConfirmar() {
               <button
                 type="button"
                 className="btn-secondary-public"
-                onClick={() => navigate(-1)}
+                onClick={voltar}
                 disabled={enviando}
               >
                 ← Voltar
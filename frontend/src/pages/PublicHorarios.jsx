@@ -20,6 +20,7 @@ export default function PublicHorarios() {
   const [mesAtual, setMesAtual] = useState(new Date(dataInicial.getFullYear(), dataInicial.getMonth(), 1));
   const [dataSelecionada, setDataSelecionada] = useState(dataInicial);
   const [horarios, setHorarios] = useState([]);
+  const [livresPorHorario, setLivresPorHorario] = useState({});
   const [carregando, setCarregando] = useState(true);
   const [carregandoHorarios, setCarregandoHorarios] = useState(false);
 
@@ -119,10 +120,10 @@ export default function PublicHorarios() {
     carregar();
   }, [lojaId, servicoId]);
 
-  async function carregarHorarios(dia) {
+  async function carregarHorarios(dia, silencioso = false) {
     if (!loja) return;
 
-    setCarregandoHorarios(true);
+    if (!silencioso) setCarregandoHorarios(true);
 
     const params = {
       lojaId,
@@ -133,15 +134,29 @@ export default function PublicHorarios() {
       params.servicoId = servicoId;
     }
 
-    if (loja.usaProfissionais && profissionalSelecionado) {
+    const qualquerProfissional = loja.usaProfissionais && profissionalSelecionado === "qualquer";
+
+    if (loja.usaProfissionais && profissionalSelecionado && !qualquerProfissional) {
       params.profissionalId = profissionalSelecionado;
     }
 
     try {
-      const resp = await api.get("/public/agendamentos/horarios", { params });
-      setHorarios(resp.data.horarios || []);
+      if (qualquerProfissional) {
+        // Um único request traz os horários e quem está livre em cada um
+        const resp = await api.get("/public/agendamentos/horarios/profissionais", { params });
+        const lista = resp.data.horarios || [];
+        const mapa = {};
+        lista.forEach((h) => { mapa[h.horario] = h.profissionais; });
+        setLivresPorHorario(mapa);
+        setHorarios(lista.map((h) => h.horario));
+      } else {
+        const resp = await api.get("/public/agendamentos/horarios", { params });
+        setLivresPorHorario({});
+        setHorarios(resp.data.horarios || []);
+      }
     } catch (e) {
       console.error("Erro ao buscar horários", e);
+      setLivresPorHorario({});
       setHorarios([]);
     } finally {
       setCarregandoHorarios(false);
@@ -152,19 +167,57 @@ export default function PublicHorarios() {
     if (loja && dataSelecionada) carregarHorarios(dataSelecionada);
   }, [dataSelecionada, profissionalSelecionado, loja]);
 
+  // Avisos ao vivo de horários ocupados/liberados no dia selecionado
+  useEffect(() => {
+    if (!loja || !dataSelecionada || typeof EventSource === "undefined") return;
+
+    const url = `${api.defaults.baseURL}/public/agendamentos/eventos?lojaId=${lojaId}&data=${formatISO(dataSelecionada)}`;
+    const eventos = new EventSource(url);
+    const atualizar = () => carregarHorarios(dataSelecionada, true);
+
+    eventos.addEventListener("ocupado", atualizar);
+    eventos.addEventListener("liberado", atualizar);
+
+    return () => eventos.close();
+  }, [dataSelecionada, profissionalSelecionado, loja]);
+
   function selecionarDia(diaObj) {
     if (isDiaPassado(diaObj.data) || !diaPermitido(diaObj.data)) return;
     setDataSelecionada(diaObj.data);
   }
 
-  function selecionarHorario(horarioStr) {
+  async function selecionarHorario(horarioStr) {
     const dataISO = formatISO(dataSelecionada);
     const dataHoraCompleta = `${dataISO}T${horarioStr}`;
     
     const params = new URLSearchParams();
-    if (profissionalSelecionado) {
+    if (profissionalSelecionado === "qualquer") {
+      // Primeiro profissional livre neste horário
+      const livres = livresPorHorario[horarioStr] || [];
+      if (livres.length > 0) {
+        params.set('profissionalId', livres[0].id);
+      }
+    } else if (profissionalSelecionado) {
       params.set('profissionalId', profissionalSelecionado);
     }
+
+    // Segura o horário enquanto o cliente preenche os dados
+    try {
+      const resp = await api.post("/public/agendamentos/reservas", {
+        lojaId,
+        servicoId: loja.usaServicos ? servicoId : null,
+        profissionalId: params.get('profissionalId'),
+        dataHora: dataHoraCompleta
+      });
+      params.set('reservaToken', resp.data.reservaToken);
+    } catch (e) {
+      if (e.response?.status === 409) {
+        alert("Esse horário acabou de ser reservado. Escolha outro.");
+        carregarHorarios(dataSelecionada, true);
+        return;
+      }
+      // Sem reserva o fluxo continua; a confirmação valida o horário de novo
+    }
     
     const query = params.toString();
     const url = query 
@@ -243,6 +296,7 @@ export default function PublicHorarios() {
                 onChange={(e) => setProfissionalSelecionado(e.target.value)}
               >
                 <option value="">Selecione um profissional</option>
+                <option value="qualquer">Qualquer profissional</option>
                 {profissionais.map((p) => (
                   <option key={p.id} value={p.id}>
                     {p.nome}
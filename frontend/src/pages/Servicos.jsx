@@ -1,6 +1,6 @@
 import { useEffect, useState } from "react";
 import { useAuth } from "../context/AuthContext";
-import api from "../services/api";
+import api, { listarTodasPaginas } from "../services/api";
 import "../styles/servicos.css";
 
 export default function Servicos() {
@@ -25,8 +25,7 @@ export default function Servicos() {
   async function carregar() {
     setCarregando(true);
     try {
-      const resp = await api.get(`/api/servicos/loja/${lojaId}`);
-      setLista(resp.data || []);
+      setLista(await listarTodasPaginas(`/api/servicos/loja/${lojaId}`));
     } catch (error) {
       console.error(error);
       setLista([]);
@@ -4,4 +4,19 @@ const api = axios.create({
   baseURL: import.meta.env.VITE_API_URL || "https://marcahora-production.up.railway.app",
 });
 
+/**
+ * Percorre todas as páginas de uma listagem por cursor ({ itens, proximoCursor }).
+ * Só para listas pequenas (serviços, profissionais).
+ */
+export async function listarTodasPaginas(url) {
+  const itens = [];
+  let cursor = null;
+  do {
+    const resp = await api.get(url, { params: { cursor, limite: 200 } });
+    itens.push(...(resp.data.itens || []));
+    cursor = resp.data.proximoCursor;
+  } while (cursor);
+  return itens;
+}
+
 export default api;
\ No newline at end of file